@@ -2,21 +2,38 @@ package de.unipassau.sep19.hafenkran.clusterservice.controller;
 
 import de.unipassau.sep19.hafenkran.clusterservice.dto.ExecutionDTO;
 import de.unipassau.sep19.hafenkran.clusterservice.dto.ExecutionDTOList;
+import de.unipassau.sep19.hafenkran.clusterservice.dto.ResultsMetadataDTO;
 import de.unipassau.sep19.hafenkran.clusterservice.dto.StdinDTO;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.LogLine;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.LogSink;
 import de.unipassau.sep19.hafenkran.clusterservice.service.ExecutionService;
 import de.unipassau.sep19.hafenkran.clusterservice.util.SecurityContextUtil;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.IOUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The REST-Controller for execution specific POST and GET endpoints.
@@ -32,6 +49,12 @@ public class ExecutionController {
     @Value("${kubernetes.defaultLogLines}")
     private int defaultLogLines;
 
+    @Value("${kubernetes.logs.follow-timeout:3600}")
+    private long followTimeout;
+
+    @Value("${kubernetes.results.timeout:3600}")
+    private long resultsTimeout;
+
     @Value("${service-user.secret}")
     private String serviceSecret;
 
@@ -50,6 +73,8 @@ public class ExecutionController {
 
     /**
      * GET-Endpoint for receiving the logs of a running execution.
+     * <p>
+     * The request thread is released while the logs are read from the cluster.
      *
      * @param executionId The UUID of the requested execution.
      * @return The logs of the running execution.
@@ -57,7 +82,7 @@ public class ExecutionController {
     @GetMapping("/{executionId}/logs")
     @ResponseBody
     @ResponseStatus(HttpStatus.OK)
-    public String getLogsDTOById(@NonNull @PathVariable UUID executionId,
+    public CompletableFuture<String> getLogsDTOById(@NonNull @PathVariable UUID executionId,
                                  @RequestParam(value = "lines", required = false) Integer lines,
                                  @RequestParam(value = "sinceSeconds", required = false) Integer sinceSeconds,
                                  @RequestParam(value = "printTimestamps", defaultValue = "false") String printTimestamps) {
@@ -65,10 +90,49 @@ public class ExecutionController {
             lines = defaultLogLines;
         }
 
-        return executionService.retrieveLogsForExecutionId(executionId, lines, sinceSeconds,
+        return executionService.retrieveLogsForExecutionIdAsync(executionId, lines, sinceSeconds,
                 printTimestamps.equals("true"));
     }
 
+    /**
+     * GET-Endpoint for following the logs of a running execution as server-sent events, one event per line.
+     * <p>
+     * All followers of an execution share a single log stream. Followers which can not keep up lose the oldest
+     * lines instead of delaying the others.
+     *
+     * @param executionId     The UUID of the requested execution.
+     * @param printTimestamps Whether every line is prefixed with its timestamp.
+     * @return The event stream of all lines logged from now on, which completes once the execution terminated or
+     * the follow timeout elapsed.
+     */
+    @GetMapping(value = "/{executionId}/logs", params = "follow=true", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter followLogsById(@NonNull @PathVariable UUID executionId,
+                                     @RequestParam(value = "printTimestamps", defaultValue = "false") String printTimestamps) {
+        final boolean withTimestamps = printTimestamps.equals("true");
+        final SseEmitter emitter = new SseEmitter(TimeUnit.SECONDS.toMillis(followTimeout));
+
+        final Closeable subscription = executionService.followLogsForExecutionId(executionId, new LogSink() {
+            @Override
+            public void send(LogLine line) throws IOException {
+                emitter.send(line.toString(withTimestamps), MediaType.TEXT_PLAIN);
+            }
+
+            @Override
+            public void complete() {
+                emitter.complete();
+            }
+        });
+
+        // the subscription is closed however the event stream ends, e.g. if the client disconnected
+        emitter.onCompletion(() -> IOUtils.closeQuietly(subscription));
+        emitter.onTimeout(() -> {
+            IOUtils.closeQuietly(subscription);
+            emitter.complete();
+        });
+        emitter.onError(e -> IOUtils.closeQuietly(subscription));
+        return emitter;
+    }
+
     /**
      * GET-Endpoint for receiving an {@link ExecutionDTOList} of the current user.
      *
@@ -94,8 +158,8 @@ public class ExecutionController {
     @PostMapping("/{executionId}/cancel")
     @ResponseBody
     @ResponseStatus(HttpStatus.OK)
-    public ExecutionDTO terminateExecution(@NonNull @PathVariable UUID executionId) {
-        return executionService.terminateExecution(executionId);
+    public CompletableFuture<ExecutionDTO> terminateExecution(@NonNull @PathVariable UUID executionId) {
+        return executionService.terminateExecutionAsync(executionId);
     }
 
     /**
@@ -111,21 +175,118 @@ public class ExecutionController {
         return executionService.deleteExecution(executionId);
     }
 
+    /**
+     * HEAD-Endpoint for receiving the size and {@code ETag} of the results archive of the execution with the
+     * {@code executionId}, without transferring the results themselves.
+     *
+     * @param executionId The id from the execution to measure the results of.
+     * @return The headers describing the current results archive.
+     */
+    @RequestMapping(value = "/{executionId}/results", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> getResultsMetadataForExecution(@NonNull @PathVariable UUID executionId,
+                                                               @RequestParam("secret") String secret) {
+        if (!secret.equals(serviceSecret)) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED,
+                    "You are not authorized to call an internal service endpoint");
+        }
+
+        final ResultsMetadataDTO metadata = executionService.getResultsMetadata(executionId);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .eTag(eTag(metadata))
+                .contentLength(metadata.getSize())
+                .build();
+    }
+
     /**
      * GET-Endpoint for receiving the results of the execution with the {@code executionId}.
+     * <p>
+     * The results are written to the response while they are read from the cluster, until the results timeout
+     * elapsed. The archive is built anew for every request, so a single byte range for resuming an interrupted
+     * download is only returned if the {@code If-Range} validator matches the {@code ETag} of the current archive.
+     * Otherwise, the whole archive is returned.
      *
-     * @param executionId The id from the execution to get the results from.
-     * @return A Base64-String with the results.
+     * @param executionId   The id from the execution to get the results from.
+     * @param rangeHeader   The optional byte range of the archive to be returned.
+     * @param ifRangeHeader The {@code ETag} from a previous response, which has to match for the range to be applied.
+     * @param response      The response the tar archive is written to.
+     * @return The task streaming the tar archive with the results from the cluster, or {@code null} if the range
+     * can not be satisfied.
      */
     @GetMapping(value = "/{executionId}/results", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
-    @ResponseBody
-    @ResponseStatus(HttpStatus.OK)
-    public byte[] getResultsForExecution(@NonNull @PathVariable UUID executionId, @RequestParam("secret") String secret) {
+    public WebAsyncTask<Void> getResultsForExecution(@NonNull @PathVariable UUID executionId,
+                                                     @RequestParam("secret") String secret,
+                                                     @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader,
+                                                     @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRangeHeader,
+                                                     HttpServletResponse response) {
         if (!secret.equals(serviceSecret)) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED,
                     "You are not authorized to call an internal service endpoint");
         }
-        return executionService.getResults(executionId);
+
+        List<HttpRange> ranges;
+        try {
+            ranges = HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            ranges = Collections.emptyList();
+        }
+
+        // measuring builds the archive once more, so it is only done for resuming a download of a known archive
+        if (ranges.size() != 1 || StringUtils.isEmpty(ifRangeHeader)) {
+            final InputStream results = executionService.getResults(executionId);
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+            return streamResults(results, response);
+        }
+
+        final ResultsMetadataDTO metadata = executionService.getResultsMetadata(executionId);
+        final long size = metadata.getSize();
+        final String eTag = eTag(metadata);
+
+        // the archive changed since the validator was issued, so the range may point to other content
+        if (!ifRangeHeader.equals(eTag)) {
+            final InputStream results = executionService.getResults(executionId);
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+            response.setHeader(HttpHeaders.ETAG, eTag);
+            response.setContentLengthLong(size);
+            return streamResults(results, response);
+        }
+
+        final long start = ranges.get(0).getRangeStart(size);
+        final long end = ranges.get(0).getRangeEnd(size);
+
+        if (start >= size || start > end) {
+            response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+            return null;
+        }
+
+        final InputStream results = executionService.getResults(executionId, start, end - start + 1);
+        response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CONTENT_RANGE, String.format("bytes %s-%s/%s", start, end, size));
+        response.setHeader(HttpHeaders.ETAG, eTag);
+        response.setContentLengthLong(end - start + 1);
+        return streamResults(results, response);
+    }
+
+    private static String eTag(@NonNull ResultsMetadataDTO metadata) {
+        return String.format("\"%s-%s\"", metadata.getChecksum(), metadata.getSize());
+    }
+
+    private WebAsyncTask<Void> streamResults(@NonNull InputStream results, @NonNull HttpServletResponse response) {
+        // the stream is opened before, so errors are reported before the response is committed
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+
+        final WebAsyncTask<Void> task = new WebAsyncTask<>(TimeUnit.SECONDS.toMillis(resultsTimeout), () -> {
+            try (InputStream is = results) {
+                IOUtils.copyLarge(is, response.getOutputStream());
+            }
+            return null;
+        });
+
+        // closing the stream stops reading from the cluster, e.g. once the timeout elapsed
+        task.onCompletion(() -> IOUtils.closeQuietly(results));
+        return task;
     }
 
     /**
@@ -86,6 +86,19 @@ public class ExperimentController {
         return uploadService.storeFile(file, experimentName);
     }
 
+    /**
+     * GET-Endpoint for receiving the progress of pulling the image of an experiment onto the nodes of the cluster.
+     *
+     * @param experimentId The id of the experiment.
+     * @return The {@link ImagePrePullDTO} with the progress of the pre-pull.
+     */
+    @GetMapping("/{experimentId}/prepull")
+    @ResponseBody
+    @ResponseStatus(HttpStatus.OK)
+    public ImagePrePullDTO getImagePrePullForExperimentId(@PathVariable UUID experimentId) {
+        return uploadService.retrieveImagePrePullForExperimentId(experimentId);
+    }
+
     /**
      * GET-Endpoint for receiving an {@link ExecutionDTOList} of the current experiment.
      *
@@ -1,6 +1,8 @@
 package de.unipassau.sep19.hafenkran.clusterservice.controller;
 
+import de.unipassau.sep19.hafenkran.clusterservice.dto.ApiCallMetricsDTO;
 import de.unipassau.sep19.hafenkran.clusterservice.dto.MetricDTO;
+import de.unipassau.sep19.hafenkran.clusterservice.dto.StartupLatencyMetricsDTO;
 import de.unipassau.sep19.hafenkran.clusterservice.service.MetricsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -42,4 +44,37 @@ public class MetricsController {
         }
         return metricsService.retrieveMetrics();
     }
+
+    /**
+     * GET-Endpoint for receiving the latency histograms and counters of the calls made to the Kubernetes api.
+     *
+     * @return List with an {@link ApiCallMetricsDTO} per verb and resource.
+     */
+    @GetMapping("/kubernetes")
+    @ResponseBody
+    @ResponseStatus(HttpStatus.OK)
+    public List<ApiCallMetricsDTO> retrieveApiCallMetrics(@RequestParam("secret") String secret) {
+        if (!secret.equals(serviceSecret)) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED,
+                    "You are not authorized to call an internal service endpoint");
+        }
+        return metricsService.retrieveApiCallMetrics();
+    }
+
+    /**
+     * GET-Endpoint for receiving the latency histograms of the phases of starting executions, from the quota check
+     * until the container is ready.
+     *
+     * @return List with a {@link StartupLatencyMetricsDTO} per phase.
+     */
+    @GetMapping("/startup")
+    @ResponseBody
+    @ResponseStatus(HttpStatus.OK)
+    public List<StartupLatencyMetricsDTO> retrieveStartupLatencyMetrics(@RequestParam("secret") String secret) {
+        if (!secret.equals(serviceSecret)) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED,
+                    "You are not authorized to call an internal service endpoint");
+        }
+        return metricsService.retrieveStartupLatencyMetrics();
+    }
 }
@@ -0,0 +1,47 @@
+package de.unipassau.sep19.hafenkran.clusterservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * The latency histogram and counters of the calls of one verb to one resource of the Kubernetes api.
+ */
+@Data
+@RequiredArgsConstructor(onConstructor = @__(@JsonCreator))
+public class ApiCallMetricsDTO {
+
+    @NonNull
+    @JsonProperty("verb")
+    private final String verb;
+
+    @NonNull
+    @JsonProperty("resource")
+    private final String resource;
+
+    @JsonProperty("count")
+    private final long count;
+
+    @JsonProperty("errors")
+    private final long errors;
+
+    @JsonProperty("retries")
+    private final long retries;
+
+    @JsonProperty("sumMillis")
+    private final long sumMillis;
+
+    @JsonProperty("throttledMillis")
+    private final long throttledMillis;
+
+    /**
+     * The cumulative amount of calls per upper latency bound in milliseconds.
+     */
+    @NonNull
+    @JsonProperty("buckets")
+    private final Map<String, Long> buckets;
+}
@@ -54,6 +54,15 @@ public class ExecutionDTO {
     @JsonProperty("ownerId")
     private UUID ownerId;
 
+    @JsonProperty("scheduledAt")
+    private LocalDateTime scheduledAt;
+
+    @JsonProperty("containerStartedAt")
+    private LocalDateTime containerStartedAt;
+
+    @JsonProperty("readyAt")
+    private LocalDateTime readyAt;
+
     public static ExecutionDTO fromExecutionDetails(@NonNull final ExecutionDetails executionDetails) {
         return new ExecutionDTO(
                 executionDetails.getId(),
@@ -66,7 +75,10 @@ public class ExecutionDTO {
                 executionDetails.getRam(),
                 executionDetails.getCpu(),
                 executionDetails.getBookedTime(),
-                executionDetails.getOwnerId()
+                executionDetails.getOwnerId(),
+                executionDetails.getScheduledAt(),
+                executionDetails.getContainerStartedAt(),
+                executionDetails.getReadyAt()
         );
     }
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package de.unipassau.sep19.hafenkran.clusterservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The progress of pulling the image of an experiment onto the nodes of the cluster ahead of its first execution.
+ */
+@Data
+@RequiredArgsConstructor(onConstructor = @__(@JsonCreator))
+public class ImagePrePullDTO {
+
+    @NonNull
+    @JsonProperty("image")
+    private final String image;
+
+    /**
+     * The amount of nodes the image is pulled onto, or 0 if no pre-pull is running.
+     */
+    @JsonProperty("nodes")
+    private final int nodes;
+
+    @JsonProperty("pulledNodes")
+    private final int pulledNodes;
+
+    @JsonProperty("completed")
+    private final boolean completed;
+}
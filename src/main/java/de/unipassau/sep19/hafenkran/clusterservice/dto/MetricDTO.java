@@ -1,8 +1,10 @@
 package de.unipassau.sep19.hafenkran.clusterservice.dto;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import de.unipassau.sep19.hafenkran.clusterservice.util.QuantityParser;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -83,19 +85,28 @@ public class MetricDTO {
     @JsonIgnoreProperties(ignoreUnknown = true)
     public static class UsageDTO {
 
-        //used for removing units from kubernetes
-        private static final String REGEX = "[^0-9]";
-
+        //in Kibibyte, without unit
         @JsonProperty("memory")
         String memory;
 
+        //in nanoCores, without unit
         @JsonProperty("cpu")
         String cpu;
 
         @JsonCreator
         public UsageDTO(@JsonProperty("memory") String memory, @JsonProperty("cpu") String cpu) {
-            this.memory = memory.replaceAll(REGEX, "");
-            this.cpu = cpu.replaceAll(REGEX, "");
+            this.memory = Long.toString(QuantityParser.parseKibibytes(memory));
+            this.cpu = Long.toString(QuantityParser.parseNanoCores(cpu));
+        }
+
+        @JsonIgnore
+        public long getMemoryKibibytes() {
+            return Long.parseLong(memory);
+        }
+
+        @JsonIgnore
+        public long getCpuMilliCores() {
+            return QuantityParser.parse(cpu, -6, 0);
         }
     }
 }
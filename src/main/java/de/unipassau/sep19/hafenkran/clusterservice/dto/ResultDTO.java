@@ -2,10 +2,13 @@ package de.unipassau.sep19.hafenkran.clusterservice.dto;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import de.unipassau.sep19.hafenkran.clusterservice.util.Base64StreamSerializer;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NonNull;
 
+import java.io.InputStream;
 import java.util.UUID;
 
 @Data
@@ -22,6 +25,7 @@ public class ResultDTO {
 
     @NonNull
     @JsonProperty("results")
-    private String results;
+    @JsonSerialize(using = Base64StreamSerializer.class)
+    private InputStream results;
 
 }
@@ -0,0 +1,22 @@
+package de.unipassau.sep19.hafenkran.clusterservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The size and checksum of the results archive of an execution, used for answering range requests on the results.
+ */
+@Data
+@RequiredArgsConstructor(onConstructor = @__(@JsonCreator))
+public class ResultsMetadataDTO {
+
+    @JsonProperty("size")
+    private final long size;
+
+    @NonNull
+    @JsonProperty("checksum")
+    private final String checksum;
+}
@@ -0,0 +1,35 @@
+package de.unipassau.sep19.hafenkran.clusterservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.StartupLatencyMetrics.Phase;
+import lombok.Data;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * The latency histogram of one phase of starting executions, from the quota check until the container is ready.
+ */
+@Data
+@RequiredArgsConstructor(onConstructor = @__(@JsonCreator))
+public class StartupLatencyMetricsDTO {
+
+    @NonNull
+    @JsonProperty("phase")
+    private final Phase phase;
+
+    @JsonProperty("count")
+    private final long count;
+
+    @JsonProperty("sumMillis")
+    private final long sumMillis;
+
+    /**
+     * The cumulative amount of startups per upper latency bound in milliseconds.
+     */
+    @NonNull
+    @JsonProperty("buckets")
+    private final Map<String, Long> buckets;
+}
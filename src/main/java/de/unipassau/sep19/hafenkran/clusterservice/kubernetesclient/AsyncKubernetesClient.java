@@ -0,0 +1,38 @@
+package de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient;
+
+import de.unipassau.sep19.hafenkran.clusterservice.model.ExecutionDetails;
+import lombok.NonNull;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Interface providing non-blocking counterparts of the {@link KubernetesClient} methods for requests which wait on
+ * the Kubernetes api. The returned futures are completed on the threads of the http client, so no request thread is
+ * held while the api server responds.
+ */
+public interface AsyncKubernetesClient {
+
+    /**
+     * Retrieves the logs of the execution, but only if the given execution is currently running.
+     *
+     * @param executionDetails The id of the target execution.
+     * @param lines            The amount of lines to be returned.
+     * @param sinceSeconds     The time in seconds defining the range from where to start the extraction of logs.
+     * @param withTimestamps   Show the timestamp for every line.
+     * @return The future string with the lines from the log, completed exceptionally with an {@link
+     * io.kubernetes.client.ApiException} if the pod can't be found.
+     * @see KubernetesClient#retrieveLogs(ExecutionDetails, int, Integer, boolean)
+     */
+    CompletableFuture<String> retrieveLogsAsync(@NonNull ExecutionDetails executionDetails, int lines,
+                                                Integer sinceSeconds, boolean withTimestamps);
+
+    /**
+     * Deletes Kubernetes Pod.
+     *
+     * @param executionDetails the details of the execution
+     * @return The future completed once the pod was deleted, or exceptionally with an {@link
+     * io.kubernetes.client.ApiException} if the communication with the api results in an error.
+     * @see KubernetesClient#deletePod(ExecutionDetails)
+     */
+    CompletableFuture<Void> deletePodAsync(@NonNull ExecutionDetails executionDetails);
+}
@@ -1,16 +1,26 @@
 package de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient;
 
+import de.unipassau.sep19.hafenkran.clusterservice.dto.ApiCallMetricsDTO;
+import de.unipassau.sep19.hafenkran.clusterservice.dto.ImagePrePullDTO;
+import de.unipassau.sep19.hafenkran.clusterservice.dto.NodeMetricsDTO;
+import de.unipassau.sep19.hafenkran.clusterservice.dto.ResultsMetadataDTO;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.LogSink;
 import de.unipassau.sep19.hafenkran.clusterservice.model.ExecutionDetails;
 import de.unipassau.sep19.hafenkran.clusterservice.model.ExperimentDetails;
 import io.kubernetes.client.ApiException;
 import lombok.NonNull;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
 
 /**
  * Interface providing methods for interacting with a KubernetesClient.
+ * <p>
+ * Every implementation also offers the non-blocking methods of the {@link AsyncKubernetesClient}.
  */
-public interface KubernetesClient {
+public interface KubernetesClient extends AsyncKubernetesClient {
 
     /**
      * Creates a new namespace for an Experiment.
@@ -50,14 +60,53 @@ public interface KubernetesClient {
     String retrieveLogs(@NonNull ExecutionDetails executionDetails, int lines, Integer sinceSeconds, boolean withTimestamps) throws ApiException;
 
     /**
-     * Retrieves the results of the execution from the pod in Kubernetes.
+     * Follows the logs of the execution, but only if the given execution is currently running. All followers of the
+     * same execution share a single log stream.
+     *
+     * @param executionDetails The target execution.
+     * @param sink             The subscriber which receives every line logged from now on.
+     * @return The subscription, which has to be closed once the subscriber stops following the logs.
+     * @throws IOException  if the log stream could not be opened.
+     * @throws ApiException if the pod can't be found.
+     */
+    Closeable followLogs(@NonNull ExecutionDetails executionDetails, @NonNull LogSink sink) throws IOException, ApiException;
+
+    /**
+     * Retrieves the results of the execution from the pod in Kubernetes. The results are streamed from the pod as
+     * they are read, so the caller has to close the returned stream.
      *
      * @param executionDetails The execution to get the results from.
-     * @return A Base64-String of the results.
+     * @return A stream of the tar archive of the results, compressed if a results compression is configured.
      * @throws ApiException if the pod couldn't be found.
      * @throws IOException  if the input couldn't be read.
      */
-    String retrieveResults(@NonNull ExecutionDetails executionDetails) throws ApiException, IOException;
+    InputStream retrieveResults(@NonNull ExecutionDetails executionDetails) throws ApiException, IOException;
+
+    /**
+     * Retrieves a byte range of the results of the execution from the pod in Kubernetes. Only the requested range is
+     * transferred, so the caller has to close the returned stream.
+     *
+     * @param executionDetails The execution to get the results from.
+     * @param offset           The first byte of the archive to be returned.
+     * @param length           The amount of bytes to be returned.
+     * @return A stream of the range of the archive returned by {@link #retrieveResults(ExecutionDetails)}.
+     * @throws ApiException if the pod couldn't be found.
+     * @throws IOException  if the input couldn't be read.
+     */
+    InputStream retrieveResults(@NonNull ExecutionDetails executionDetails, long offset, long length)
+            throws ApiException, IOException;
+
+    /**
+     * Retrieves the size and checksum of the results archive of the execution. The archive is built and measured
+     * inside of the pod, so none of its content is transferred.
+     *
+     * @param executionDetails The execution to get the results metadata from.
+     * @return The size and checksum of the archive returned by {@link #retrieveResults(ExecutionDetails)}.
+     * @throws ApiException if the pod couldn't be found.
+     * @throws IOException  if the output couldn't be read.
+     */
+    ResultsMetadataDTO retrieveResultsMetadata(@NonNull ExecutionDetails executionDetails) throws ApiException,
+            IOException;
 
     /**
      * Sending an standard-{@code input} to the kubernetes container.
@@ -72,7 +121,9 @@ public interface KubernetesClient {
     void deleteNamespace(@NonNull String namespace) throws ApiException;
 
     /**
-     * Checks if the requested limits for cpu and ram are available on the namespace.
+     * Checks if the requested limits for cpu and ram are available on the namespace and reserves them for the pod of
+     * the execution if they are. The reservation is released once the pod terminated, was deleted or could not be
+     * created.
      *
      * @param executionDetails The execution with the requested cpu and ram limits.
      * @return False if the requested limits are available on the namespace, else true if the namespace resources are
@@ -82,15 +133,45 @@ public interface KubernetesClient {
     boolean checkIfNamespaceResourcesAlreadyAllocated(@NonNull ExecutionDetails executionDetails) throws ApiException;
 
     /**
-     * Checks if there is enough node capacity the create a new namespace with resource quotas.
-     * Checks if the used resources on a node + requested resources are lower than the node capacity.
+     * Checks if there is enough node capacity to create a new namespace with resource quotas.
+     * Checks if the namespace limits fit into the free capacity of at least one node, where the free capacity is the
+     * allocatable capacity minus the greater one of the summed pod requests and the last sampled usage of the node.
+     * Until the nodes and pods are cached, they are listed from the cluster instead.
+     *
+     * @return True if there is enough free capacity on a node.
+     * @throws ApiException if the communication with the api results in an error
+     */
+    boolean checkIfEnoughClusterCapacityFree() throws ApiException;
+
+    /**
+     * Updates the used resources of the cluster nodes, which the cluster capacity check takes into account.
+     *
+     * @param nodeMetrics The current metrics of the cluster nodes with their used resources.
+     */
+    void updateNodeUsage(@NonNull List<NodeMetricsDTO> nodeMetrics);
+
+    /**
+     * Retrieves the latency histograms and counters of the calls made to the Kubernetes api so far.
+     *
+     * @return The metrics per verb and resource.
+     */
+    List<ApiCallMetricsDTO> retrieveApiCallMetrics();
+
+    /**
+     * Starts pulling the image of an experiment onto all nodes, so its first execution does not have to wait for the
+     * pull. Does nothing if pre-pulling is disabled.
+     *
+     * @param experimentDetails The {@link ExperimentDetails} with the checksum of the pushed image.
+     * @throws ApiException if the communication with the api results in an error.
+     */
+    void startImagePrePull(@NonNull ExperimentDetails experimentDetails) throws ApiException;
+
+    /**
+     * Retrieves the progress of pulling the image of an experiment onto the nodes.
      *
-     * @param nodeName   The name of the node which should be checked.
-     * @param usedCpu    The already used cpu of the node.
-     * @param usedMemory The already used memory of the node.
-     * @return True if there is enough free capacity on that node.
-     * @throws ApiException if the node cant be found.
+     * @param experimentDetails The {@link ExperimentDetails} of the pulled image.
+     * @return The progress, which is completed if no pre-pull is running anymore.
+     * @throws ApiException if the communication with the api results in an error.
      */
-    boolean checkIfEnoughNodeCapacityFree(@NonNull String nodeName, @NonNull long usedCpu,
-                                          @NonNull long usedMemory) throws ApiException;
-}
\ No newline at end of file
+    ImagePrePullDTO retrieveImagePrePull(@NonNull ExperimentDetails experimentDetails) throws ApiException;
+}
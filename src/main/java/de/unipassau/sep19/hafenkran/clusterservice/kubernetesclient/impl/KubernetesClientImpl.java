@@ -1,39 +1,82 @@
 package de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.impl;
 
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonSyntaxException;
+import com.google.gson.reflect.TypeToken;
+import com.squareup.okhttp.ConnectionPool;
+import de.unipassau.sep19.hafenkran.clusterservice.dto.ApiCallMetricsDTO;
+import de.unipassau.sep19.hafenkran.clusterservice.dto.ImagePrePullDTO;
+import de.unipassau.sep19.hafenkran.clusterservice.dto.NodeMetricsDTO;
+import de.unipassau.sep19.hafenkran.clusterservice.dto.ResultsMetadataDTO;
 import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.KubernetesClient;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.ApiCallInterceptor;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.ApiCallMetrics;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.ApiFutureCallback;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.AttachSessionPool;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.ChunkedListIterator;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.ChunkedListIterator.Chunk;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.ClusterCapacityModel;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.ImageLocalityIndex;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.ImagePrePull;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.LogRingBuffer;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.LogSink;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.LogStreamHub;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.LogTailCache;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.PlacementEngine;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.PlacementEngine.Placement;
 import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.PodEventHandler;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.PodProjection;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.PodProjection.PodProjectionList;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.PodProjectionListerWatcher;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.PodProjectionListerWatcher.Checkpoint;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.ResourceReservationLedger;
 import de.unipassau.sep19.hafenkran.clusterservice.model.ExecutionDetails;
 import de.unipassau.sep19.hafenkran.clusterservice.model.ExperimentDetails;
+import de.unipassau.sep19.hafenkran.clusterservice.model.InformerCheckpoint;
+import de.unipassau.sep19.hafenkran.clusterservice.repository.InformerCheckpointRepository;
 import io.kubernetes.client.*;
+import io.kubernetes.client.apis.AppsV1Api;
 import io.kubernetes.client.apis.CoreV1Api;
 import io.kubernetes.client.custom.Quantity;
 import io.kubernetes.client.informer.SharedIndexInformer;
 import io.kubernetes.client.informer.SharedInformerFactory;
+import io.kubernetes.client.informer.cache.Lister;
+import io.kubernetes.client.informer.impl.DefaultSharedIndexInformer;
 import io.kubernetes.client.models.*;
 import io.kubernetes.client.util.CallGeneratorParams;
 import io.kubernetes.client.util.Config;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.codec.binary.Base64InputStream;
 import org.apache.commons.io.IOUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ResponseStatusException;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.ws.rs.InternalServerErrorException;
-import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 /**
  * Implementation of Kubernetes Java Client to communicate with the cluster via api.
@@ -42,11 +85,78 @@ import java.util.stream.Collectors;
 @Component
 public class KubernetesClientImpl implements KubernetesClient {
 
+    private static final String RESOURCE_QUOTA_NAME = "resource-quota";
+
+    private static final String MANAGED_BY_LABEL = "app.kubernetes.io/managed-by";
+
+    private static final String MANAGED_BY_VALUE = "hafenkran";
+
+    private static final String POD_INFORMER = "pods";
+
+    private static final Type POD_PROJECTIONS_TYPE = new TypeToken<List<PodProjection>>() {
+    }.getType();
+
+    private static final int MAX_IDLE_CONNECTIONS = 5;
+
+    private static final long KEEP_ALIVE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
     private CoreV1Api api;
 
+    private AppsV1Api appsApi;
+
+    // api for the long-lived watches of the informers on a separate http client, see postConstruct
+    private CoreV1Api watchApi;
+
+    private ApiCallInterceptor apiCallInterceptor;
+
     private SharedInformerFactory factory;
 
-    private SharedIndexInformer<V1Pod> podInformer;
+    private ExecutorService informerExecutor;
+
+    private SharedIndexInformer<PodProjection> podInformer;
+
+    private PodProjectionListerWatcher podListerWatcher;
+
+    private String lastCheckpointVersion;
+
+    private Lister<PodProjection> podLister;
+
+    private SharedIndexInformer<V1Namespace> namespaceInformer;
+
+    private Lister<V1Namespace> namespaceLister;
+
+    private SharedIndexInformer<V1ResourceQuota> resourceQuotaInformer;
+
+    private Lister<V1ResourceQuota> resourceQuotaLister;
+
+    private ResourceReservationLedger reservationLedger;
+
+    private SharedIndexInformer<V1Node> nodeInformer;
+
+    private ClusterCapacityModel capacityModel;
+
+    private ImageLocalityIndex imageLocalityIndex;
+
+    private PlacementEngine placementEngine;
+
+    private AttachSessionPool attachSessionPool;
+
+    private LogStreamHub logStreamHub;
+
+    private LogTailCache logTailCache;
+
+    private ApiCallMetrics apiCallMetrics;
+
+    private Exec exec;
+
+    @Value("${kubernetes.deployment.image-locality:true}")
+    private boolean imageLocality;
+
+    @Value("${kubernetes.deployment.placement:false}")
+    private boolean placement;
+
+    @Autowired
+    private InformerCheckpointRepository informerCheckpointRepository;
 
     @Value("${dockerHubRepoPath}")
     private String DOCKER_HUB_REPO_PATH;
@@ -78,6 +188,54 @@ public class KubernetesClientImpl implements KubernetesClient {
     @Value("${kubernetes.namespace.limits.memory}")
     private String memoryRequestLimit;
 
+    @Value("${kubernetes.results.compression:none}")
+    private String resultsCompression;
+
+    @Value("${kubernetes.attach.idle-timeout:300}")
+    private long attachIdleTimeout;
+
+    @Value("${kubernetes.logs.follow-buffer-lines:1000}")
+    private int followBufferLines;
+
+    @Value("${kubernetes.logs.follow-threads:64}")
+    private int followThreads;
+
+    @Value("${kubernetes.logs.tail-buffer-size:1048576}")
+    private int tailBufferSize;
+
+    @Value("${kubernetes.api.qps:20}")
+    private double apiQps;
+
+    @Value("${kubernetes.api.burst:40}")
+    private int apiBurst;
+
+    @Value("${kubernetes.api.max-retries:3}")
+    private int apiMaxRetries;
+
+    @Value("${kubernetes.api.request-timeout:30}")
+    private long apiRequestTimeout;
+
+    @Value("${kubernetes.api.max-concurrent-requests:64}")
+    private int apiMaxConcurrentRequests;
+
+    @Value("${kubernetes.api.protobuf:true}")
+    private boolean apiProtobuf;
+
+    @Value("${kubernetes.api.list-chunk-size:500}")
+    private int apiListChunkSize;
+
+    @Value("${kubernetes.prepull.enabled:false}")
+    private boolean prePullEnabled;
+
+    @Value("${kubernetes.prepull.namespace:hafenkran-prepull}")
+    private String prePullNamespace;
+
+    @Value("${kubernetes.prepull.pause-image:k8s.gcr.io/pause:3.1}")
+    private String prePullPauseImage;
+
+    @Value("${kubernetes.prepull.timeout:900}")
+    private long prePullTimeout;
+
     /**
      * Constructor of KubernetesClientImpl.
      * <p>
@@ -95,25 +253,72 @@ public class KubernetesClientImpl implements KubernetesClient {
      */
     @PostConstruct
     private void postConstruct() throws IOException {
-        // load kubernetes config file
-        final ApiClient client = loadDefaultConfig
-                ? Config.defaultClient()
-                : Config.fromConfig(kubernetesConfigLocation);
-
-        // debugging must be set to false for pod informer
-        client.setDebugging(debugMode);
-        client.getHttpClient().setReadTimeout(0, TimeUnit.SECONDS);
+        apiCallMetrics = new ApiCallMetrics();
+        apiCallInterceptor = new ApiCallInterceptor(apiQps, apiBurst, apiMaxRetries, apiCallMetrics);
+
+        // ordinary requests are bounded by timeouts, and the dispatcher limits their concurrency per host instead of
+        // the default of 5, as all of them go to the api server
+        final ApiClient client = loadApiClient();
+        client.getHttpClient().setReadTimeout(apiRequestTimeout, TimeUnit.SECONDS);
+        client.getHttpClient().setWriteTimeout(apiRequestTimeout, TimeUnit.SECONDS);
+        client.getHttpClient().getDispatcher().setMaxRequests(apiMaxConcurrentRequests);
+        client.getHttpClient().getDispatcher().setMaxRequestsPerHost(apiMaxConcurrentRequests);
+
+        // watches, followed logs and attached streams wait for data without bounds and hold their connection, so
+        // they get a client and connection pool of their own
+        final ApiClient watchClient = loadApiClient();
+        watchClient.getHttpClient().setReadTimeout(0, TimeUnit.SECONDS);
+        watchApi = new CoreV1Api(watchClient);
 
         // set global default api-client to the in-cluster one from above
         Configuration.setDefaultApiClient(client);
 
         // the CoreV1Api loads default api-client from global configuration
         api = new CoreV1Api(client);
+        appsApi = new AppsV1Api(client);
         log.info("Kubernetes Client ready!");
 
-        factory = new SharedInformerFactory();
-        createAndStartPodInformer();
-        log.info("Kubernetes Pod informer ready!");
+        reservationLedger = new ResourceReservationLedger(Long.parseLong(cpuRequestLimit),
+                Long.parseLong(memoryRequestLimit));
+
+        capacityModel = new ClusterCapacityModel();
+        imageLocalityIndex = new ImageLocalityIndex(DOCKER_HUB_REPO_PATH);
+        placementEngine = new PlacementEngine(capacityModel, imageLocalityIndex);
+        attachSessionPool = new AttachSessionPool(new Attach(watchClient));
+        exec = new Exec(watchClient);
+
+        final PodLogs podLogs = new PodLogs(watchClient);
+        logStreamHub = new LogStreamHub(
+                (namespace, podName) -> podLogs.streamNamespacedPodLog(namespace, podName, null, null, 0, true),
+                new ThreadPoolExecutor(0, followThreads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                        new CustomizableThreadFactory("log-stream-")), followBufferLines);
+        logTailCache = new LogTailCache(logStreamHub, tailBufferSize, Math.max(1, tailBufferSize / 16));
+
+        informerExecutor = Executors.newCachedThreadPool();
+        factory = new SharedInformerFactory(informerExecutor);
+        labelUnmanagedPods();
+        createPodInformer();
+        createNodeInformer();
+        createNamespaceInformer();
+        createResourceQuotaInformer();
+        factory.startAllRegisteredInformers();
+        informerExecutor.submit(podInformer::run);
+        log.info("Kubernetes Pod, Node, Namespace and ResourceQuota informers ready!");
+    }
+
+    private ApiClient loadApiClient() throws IOException {
+        // load kubernetes config file
+        final ApiClient client = loadDefaultConfig
+                ? Config.defaultClient()
+                : Config.fromConfig(kubernetesConfigLocation);
+
+        // debugging must be set to false for pod informer
+        client.setDebugging(debugMode);
+        client.getHttpClient().setConnectTimeout(apiRequestTimeout, TimeUnit.SECONDS);
+        // otherwise all clients share the global default pool
+        client.getHttpClient().setConnectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MILLIS));
+        client.getHttpClient().interceptors().add(apiCallInterceptor);
+        return client;
     }
 
     /**
@@ -123,9 +328,7 @@ public class KubernetesClientImpl implements KubernetesClient {
     public void createNamespace(@NonNull ExperimentDetails experimentDetails) throws ApiException {
         String namespace = experimentDetails.getId().toString();
 
-        List<String> allNamespaces = getAllNamespaces();
-
-        if (!allNamespaces.contains(namespace)) {
+        if (!namespaceExists(namespace)) {
             createNamespace(namespace);
             createImagePullSecretForNamespace(namespace);
         }
@@ -142,12 +345,35 @@ public class KubernetesClientImpl implements KubernetesClient {
         String podName = executionDetails.getName();
         long podCpuLimit = executionDetails.getCpu();
         long podMemoryLimit = executionDetails.getRam();
-
+        // requests below the limits if recommended from past executions
+        long podCpuRequest = executionDetails.requestedCpu();
+        long podMemoryRequest = executionDetails.requestedRam();
+        // the cluster stops the pod once its booked time is exceeded
+        Long activeDeadlineSeconds = executionDetails.getActiveDeadlineSeconds();
+        // the placement engine packs the pods tightly, otherwise repeated executions prefer the nodes which
+        // already pulled the image
+        String nodeName = placement ? placementEngine.place(
+                new Placement(namespace, podName, image, podCpuRequest, podMemoryRequest)) : null;
+        V1Affinity affinity = null;
+        if (nodeName != null) {
+            affinity = PlacementEngine.preferredAffinity(nodeName);
+        } else if (imageLocality) {
+            affinity = imageLocalityIndex.preferredAffinity(image);
+        }
 
         Map<String, String> labels = new HashMap<>();
         labels.put("run", podName);
-        createPodInNamespace(namespace, podName, image, labels, podCpuLimit, podMemoryLimit);
-        return api.readNamespacedPod(podName, namespace, "pretty", false, false).getMetadata().getName();
+        labels.put(MANAGED_BY_LABEL, MANAGED_BY_VALUE);
+        try {
+            return createPodInNamespace(namespace, podName, image, labels, podCpuLimit, podMemoryLimit,
+                    podCpuRequest, podMemoryRequest, activeDeadlineSeconds, affinity)
+                    .getMetadata()
+                    .getName();
+        } catch (ApiException | RuntimeException e) {
+            reservationLedger.release(namespace, podName);
+            capacityModel.forget(namespace, podName);
+            throw e;
+        }
     }
 
     /**
@@ -158,15 +384,16 @@ public class KubernetesClientImpl implements KubernetesClient {
         String namespace = getNamespace(executionDetails);
         String podName = getPodName(executionDetails);
 
-        List<String> allPodsInNamespace = getAllPodsFromNamespace(namespace);
-
-        if (allPodsInNamespace == null) {
-            throw new IllegalArgumentException("This namespace doesnt exist");
-        }
         try {
-            if (allPodsInNamespace.contains(podName)) {
+            attachSessionPool.close(namespace, podName);
+            if (podExists(namespace, podName)) {
                 deletePodInNamespace(namespace, podName);
             }
+        } catch (ApiException e) {
+            // the pod informer may not have seen the deletion yet
+            if (e.getCode() != HttpStatus.NOT_FOUND.value()) {
+                throw e;
+            }
         } catch (JsonSyntaxException e) {
             if (e.getCause() instanceof IllegalStateException) {
                 IllegalStateException ise = (IllegalStateException) e.getCause();
@@ -183,19 +410,47 @@ public class KubernetesClientImpl implements KubernetesClient {
      * {@inheritDoc}
      */
     @Override
-    public String retrieveLogs(@NonNull ExecutionDetails executionDetails, int lines, Integer sinceSeconds, boolean withTimestamps) throws ApiException {
-        executionDetails.validatePermissions();
+    public CompletableFuture<Void> deletePodAsync(@NonNull ExecutionDetails executionDetails) {
+        final String namespace = getNamespace(executionDetails);
+        final String podName = getPodName(executionDetails);
 
-        if (!executionDetails.getStatus().equals(ExecutionDetails.Status.RUNNING)) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND,
-                    String.format("Found execution for id %s, but with status %s.", executionDetails.getId(),
-                            executionDetails.getStatus()));
-        }
+        attachSessionPool.close(namespace, podName);
+
+        // the returned status is not deserialized, see https://github.com/kubernetes-client/java/issues/86
+        final CompletableFuture<Object> deletion = ApiFutureCallback.enqueue(callback ->
+                api.getApiClient().executeAsync(api.deleteNamespacedPodCall(podName, namespace, null,
+                        new V1DeleteOptions(), null, null, null, null, null, null), callback));
+
+        final CompletableFuture<Void> deleted = new CompletableFuture<>();
+        deletion.whenComplete((status, e) -> {
+            if (e == null) {
+                log.info("Deleted pod {}", podName);
+                deleted.complete(null);
+            } else if (e instanceof ApiException && ((ApiException) e).getCode() == HttpStatus.NOT_FOUND.value()) {
+                deleted.complete(null);
+            } else {
+                deleted.completeExceptionally(e);
+            }
+        });
+        return deleted;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String retrieveLogs(@NonNull ExecutionDetails executionDetails, int lines, Integer sinceSeconds, boolean withTimestamps) throws ApiException {
+        validateRunning(executionDetails);
 
         final String namespace = getNamespace(executionDetails);
         final String podName = getPodName(executionDetails);
 
-        return api.readNamespacedPodLog(podName, namespace, null, false, null, "pretty", false, sinceSeconds,
+        final LogRingBuffer buffer = logTailCache.get(namespace, podName);
+        if (buffer != null && buffer.covers(lines, sinceSeconds)) {
+            return buffer.tail(lines, sinceSeconds, withTimestamps);
+        }
+
+        return api.readNamespacedPodLog(podName, namespace, null, false, null, null, false, sinceSeconds,
                 lines,
                 withTimestamps);
     }
@@ -204,28 +459,101 @@ public class KubernetesClientImpl implements KubernetesClient {
      * {@inheritDoc}
      */
     @Override
-    public String retrieveResults(@NonNull ExecutionDetails executionDetails) throws ApiException, IOException {
-        String namespace = getNamespace(executionDetails);
-        String podName = getPodName(executionDetails);
-        Exec exec = new Exec();
+    public CompletableFuture<String> retrieveLogsAsync(@NonNull ExecutionDetails executionDetails, int lines,
+                                                       Integer sinceSeconds, boolean withTimestamps) {
+        validateRunning(executionDetails);
+
+        final String namespace = getNamespace(executionDetails);
+        final String podName = getPodName(executionDetails);
+
+        final LogRingBuffer buffer = logTailCache.get(namespace, podName);
+        if (buffer != null && buffer.covers(lines, sinceSeconds)) {
+            return CompletableFuture.completedFuture(buffer.tail(lines, sinceSeconds, withTimestamps));
+        }
+
+        return ApiFutureCallback.enqueue(callback -> api.readNamespacedPodLogAsync(podName, namespace, null, false,
+                null, null, false, sinceSeconds, lines, withTimestamps, callback));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Closeable followLogs(@NonNull ExecutionDetails executionDetails, @NonNull LogSink sink) throws IOException, ApiException {
+        validateRunning(executionDetails);
+
+        try {
+            return logStreamHub.subscribe(getNamespace(executionDetails), getPodName(executionDetails), sink);
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Too many logs are followed at the moment, please try again later.", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputStream retrieveResults(@NonNull ExecutionDetails executionDetails) throws ApiException, IOException {
+        return streamFromPod(executionDetails, buildResultsCommand());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputStream retrieveResults(@NonNull ExecutionDetails executionDetails, long offset, long length)
+            throws ApiException, IOException {
+        // the range is cut out inside of the pod, so the skipped bytes are not transferred
+        return streamFromPod(executionDetails, String.format("%s | tail -c +%d | head -c %d", buildResultsCommand(),
+                offset + 1, length));
+    }
+
+    private InputStream streamFromPod(@NonNull ExecutionDetails executionDetails, @NonNull String command)
+            throws ApiException, IOException {
+        final Process proc = execInPod(executionDetails, command);
+
+        // closing the stream has to close the exec websocket as well, otherwise the connection would leak
+        return new FilterInputStream(proc.getInputStream()) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    proc.destroy();
+                }
+            }
+        };
+    }
 
-        final Process proc =
-                exec.exec(
-                        namespace,
-                        podName,
-                        new String[]{"sh", "-c", "tar cf - " + "/results" + " | base64"},
-                        null,
-                        false,
-                        false);
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResultsMetadataDTO retrieveResultsMetadata(@NonNull ExecutionDetails executionDetails) throws ApiException,
+            IOException {
+        final Process proc = execInPod(executionDetails, buildResultsCommand() + " | cksum");
 
         final String output;
-        try (InputStream is = new Base64InputStream(new BufferedInputStream(proc.getInputStream()))) {
-            output = IOUtils.toString(is, StandardCharsets.UTF_8);
-        } catch (IOException e) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Could not retrieve results for the given pod");
+        try (InputStream is = proc.getInputStream()) {
+            output = IOUtils.toString(is, StandardCharsets.UTF_8).trim();
+        } finally {
+            proc.destroy();
         }
 
-        return output;
+        // cksum prints the checksum followed by the amount of bytes
+        final String[] checksumAndSize = output.split("\\s+");
+        if (checksumAndSize.length < 2) {
+            throw new IOException(String.format("Could not measure the results of execution %s: %s",
+                    executionDetails.getId(), output));
+        }
+
+        try {
+            return new ResultsMetadataDTO(Long.parseLong(checksumAndSize[1]), checksumAndSize[0]);
+        } catch (NumberFormatException e) {
+            throw new IOException(String.format("Could not measure the results of execution %s: %s",
+                    executionDetails.getId(), output), e);
+        }
     }
 
     /**
@@ -242,15 +570,15 @@ public class KubernetesClientImpl implements KubernetesClient {
         String namespace = getNamespace(executionDetails);
         String podName = getPodName(executionDetails);
 
-        Attach attach = new Attach();
-        final Attach.AttachResult result = attach.attach(namespace, podName, true);
-        OutputStream output = result.getStandardInputStream();
+        attachSessionPool.write(namespace, podName, (input + '\n').getBytes());
+    }
 
-        output.write(input.getBytes());
-        output.write('\n');
-        output.flush();
-        output.close();
-        result.close();
+    /**
+     * Closes the attach sessions which have not been used within the configured idle timeout.
+     */
+    @Scheduled(fixedDelayString = "#{${kubernetes.attach.idle-timeout:300}*1000}")
+    public void evictIdleAttachSessions() {
+        attachSessionPool.evictIdle(TimeUnit.SECONDS.toMillis(attachIdleTimeout));
     }
 
     /**
@@ -259,79 +587,136 @@ public class KubernetesClientImpl implements KubernetesClient {
     @Override
     public boolean checkIfNamespaceResourcesAlreadyAllocated(@NonNull ExecutionDetails executionDetails) throws ApiException {
         String namespace = getNamespace(executionDetails);
-        final long requestedCpu = executionDetails.getCpu();
-        final long requestedMemory = executionDetails.getRam();
-
-        V1ResourceQuota resourceQuota = api.readNamespacedResourceQuota("resource-quota", namespace, "pretty", true, false);
-
-        String usedCpuString = resourceQuota.getStatus().getUsed().get("requests.cpu");
-        String usedMemoryString = resourceQuota.getStatus().getUsed().get("requests.memory");
+        final long requestedCpu = executionDetails.requestedCpu();
+        final long requestedMemory = executionDetails.requestedRam();
+
+        if (resourceQuotaLister.namespace(namespace).get(RESOURCE_QUOTA_NAME) == null
+                || reservationLedger.awaitsQuota(namespace)) {
+            // the informer has not seen the quota yet, e.g. directly after the namespace was created, or not the
+            // usage of a created pod yet, which a read after the pod was seen reflects
+            final long createdVersion = reservationLedger.createdVersion(namespace);
+            reservationLedger.reconcile(
+                    api.readNamespacedResourceQuota(RESOURCE_QUOTA_NAME, namespace, null, true, false),
+                    createdVersion);
+        }
 
-        final long parseCpu;
-        final long usedCpu;
-        final long usedMemory;
+        return !reservationLedger.reserve(namespace, executionDetails.getName(), requestedCpu, requestedMemory);
+    }
 
-        if (usedCpuString.length() == 1) { //used cpu either 0 or more in full core
-            parseCpu = Long.parseLong(usedCpuString);
-            if (parseCpu != 0) {
-                usedCpu = parseCpu * 1000;
-            } else {
-                usedCpu = parseCpu;
-            }
-        } else {
-            if (usedCpuString.substring(usedCpuString.length() - 1).equals("m")) { //cpu with unit millicore
-                usedCpu = Long.parseLong(usedCpuString.substring(0, usedCpuString.length() - 1));
-            } else { //full cpu core with
-                usedCpu = Long.parseLong(usedCpuString) * 1000;
-            }
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean checkIfEnoughClusterCapacityFree() throws ApiException {
+        final long cpu = Long.parseLong(cpuRequestLimit);
+        final long memory = Long.parseLong(memoryRequestLimit);
+        if (nodeInformer.hasSynced() && podInformer.hasSynced()) {
+            return capacityModel.hasCapacityFor(cpu, memory);
         }
 
-        if (usedMemoryString.length() == 1) { //used memory = 0
-            usedMemory = Integer.parseInt(usedMemoryString);
-        } else {
-            usedMemory = Integer.parseInt(usedMemoryString.substring(0, usedMemoryString.length() - 2));
+        // the model is incomplete until the node and pod informers synced, so the nodes and pods are listed instead
+        final ClusterCapacityModel listedModel = new ClusterCapacityModel();
+        for (V1Node node : api.listNode(null, null, null, null, null, null, null, null, false).getItems()) {
+            listedModel.nodeEventHandler().onAdd(node);
         }
-
-        return (requestedCpu + usedCpu > Long.parseLong(cpuRequestLimit))
-                || (requestedMemory + usedMemory > Long.parseLong(memoryRequestLimit));
+        for (V1Pod pod : api.listPodForAllNamespaces(null, null, null, MANAGED_BY_LABEL + "=" + MANAGED_BY_VALUE,
+                null, null, null, null, false).getItems()) {
+            listedModel.podEventHandler().onAdd(PodProjection.of(pod));
+        }
+        return listedModel.hasCapacityFor(cpu, memory);
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public boolean checkIfEnoughNodeCapacityFree(@NonNull String nodeName, @NonNull long usedCpu,
-                                                 @NonNull long usedMemory) throws ApiException {
-        V1Node response = api.readNode(nodeName, "pretty", null, null);
+    public void updateNodeUsage(@NonNull List<NodeMetricsDTO> nodeMetrics) {
+        for (NodeMetricsDTO nodeMetric : nodeMetrics) {
+            capacityModel.updateUsage(nodeMetric.getMetadata().getName(),
+                    nodeMetric.getUsage().getCpuMilliCores(), nodeMetric.getUsage().getMemoryKibibytes());
+        }
+    }
 
-        long totalNodeCpuCapacity =
-                response.getStatus().getCapacity().get("cpu").getNumber().intValue() * 1000; //in milliCores
-        long totalNodeMemoryCapacity =
-                response.getStatus().getCapacity().get("memory").getNumber().intValue(); //in kibibyte
+    private Process execInPod(@NonNull ExecutionDetails executionDetails, @NonNull String command)
+            throws ApiException, IOException {
+        return exec.exec(
+                getNamespace(executionDetails),
+                getPodName(executionDetails),
+                new String[]{"sh", "-c", command},
+                null,
+                false,
+                false);
+    }
 
-        return (Long.parseLong(cpuRequestLimit) + usedCpu <= totalNodeCpuCapacity)
-                || (Long.parseLong(memoryRequestLimit) + usedMemory <= totalNodeMemoryCapacity);
+    /**
+     * Builds the shell command which writes the results directory as tar archive to stdout. The archive is
+     * compressed inside of the pod if a compression is configured, so only the compressed bytes are transferred.
+     *
+     * @return the command to be executed in the pod
+     */
+    private String buildResultsCommand() {
+        final String tarCommand = "tar cf - /results";
+
+        switch (resultsCompression) {
+        case "none":
+            return tarCommand;
+        case "gzip":
+            return tarCommand + " | gzip -c";
+        case "zstd":
+            return tarCommand + " | zstd -c";
+        default:
+            throw new IllegalStateException(String.format("Unsupported results compression %s. Use none, gzip or "
+                    + "zstd.", resultsCompression));
+        }
     }
 
-    private List<String> getAllNamespaces() throws ApiException {
-        V1NamespaceList listNamespace =
-                api.listNamespace(true, "pretty", null, null, null, 0, null, Integer.MAX_VALUE, Boolean.FALSE);
-        return listNamespace
-                .getItems()
-                .stream()
-                .map(v1Namespace -> v1Namespace.getMetadata().getName())
-                .collect(Collectors.toList());
+    /**
+     * Checks if the namespace exists. The check is answered by the namespace informer cache and only falls back to
+     * the api if the namespace is not cached yet, e.g. because the informer did not receive the watch event so far.
+     *
+     * @param namespace the name of the namespace
+     * @return True if the namespace exists in the cluster.
+     * @throws ApiException if the communication with the api results in an error
+     */
+    private boolean namespaceExists(@NonNull String namespace) throws ApiException {
+        if (namespaceLister.get(namespace) != null) {
+            return true;
+        }
+
+        try {
+            api.readNamespace(namespace, null, null, null);
+            return true;
+        } catch (ApiException e) {
+            if (e.getCode() == HttpStatus.NOT_FOUND.value()) {
+                return false;
+            }
+            throw e;
+        }
     }
 
-    private List<String> getAllPodsFromNamespace(@NonNull String namespace) throws ApiException {
-        V1PodList podList =
-                api.listNamespacedPod(namespace, true, "pretty", null, null, null, 0, null, Integer.MAX_VALUE,
-                        Boolean.FALSE);
-        return podList
-                .getItems()
-                .stream()
-                .map(v1Pod -> v1Pod.getMetadata().getName())
-                .collect(Collectors.toList());
+    /**
+     * Checks if the pod exists. The check is answered by the pod informer cache, which is keyed by namespace and
+     * name, and only falls back to the api if the pod is not cached yet.
+     *
+     * @param namespace the namespace of the pod
+     * @param podName   the name of the pod
+     * @return True if the pod exists in the cluster.
+     * @throws ApiException if the communication with the api results in an error
+     */
+    private boolean podExists(@NonNull String namespace, @NonNull String podName) throws ApiException {
+        if (podLister.namespace(namespace).get(podName) != null) {
+            return true;
+        }
+
+        try {
+            api.readNamespacedPod(podName, namespace, null, null, null);
+            return true;
+        } catch (ApiException e) {
+            if (e.getCode() == HttpStatus.NOT_FOUND.value()) {
+                return false;
+            }
+            throw e;
+        }
     }
 
     private void createNamespace(@NonNull String namespace) throws ApiException {
@@ -341,7 +726,7 @@ public class KubernetesClientImpl implements KubernetesClient {
                 .endMetadata()
                 .build();
 
-        api.createNamespace(experimentNamespace, true, "pretty", null);
+        api.createNamespace(experimentNamespace, true, null, null);
         log.info("Created namespace {}", namespace);
 
         if (cpuRequestLimit != null || memoryRequestLimit != null) {
@@ -364,7 +749,7 @@ public class KubernetesClientImpl implements KubernetesClient {
                 .withApiVersion("v1")
                 .withKind("ResourceQuota")
                 .withNewMetadata()
-                .withName("resource-quota")
+                .withName(RESOURCE_QUOTA_NAME)
                 .withNamespace(namespace)
                 .endMetadata()
                 .withNewSpec()
@@ -372,7 +757,7 @@ public class KubernetesClientImpl implements KubernetesClient {
                 .endSpec()
                 .build();
 
-        api.createNamespacedResourceQuota(namespace, resourceQuota, true, "pretty", null);
+        api.createNamespacedResourceQuota(namespace, resourceQuota, true, null, null);
 
         log.info("Created resource quota " + resourceQuota.getMetadata().getName() + " in namespace " + namespace);
     }
@@ -385,21 +770,33 @@ public class KubernetesClientImpl implements KubernetesClient {
      * @param podName   name of the pod
      * @param image     name of the image which should be used
      * @param labels    list of labels which should be used
+     * @param podCpuRequest    requested cpu in milliCores, at most the limit
+     * @param podMemoryRequest requested memory in Kibibyte, at most the limit
+     * @param activeDeadlineSeconds seconds after which the cluster stops the pod, or null if it may run unlimited
+     * @param affinity  the affinity of the pod, or null if it may be scheduled on any node
+     * @return the pod as it was created by the api
      * @throws ApiException if the communication with the api results in an error
      */
-    private void createPodInNamespace(@NonNull String namespace, @NonNull String podName, @NonNull String
+    private V1Pod createPodInNamespace(@NonNull String namespace, @NonNull String podName, @NonNull String
             image, @NonNull Map<String, String> labels,
-                                      @NonNull long podCpuLimit, @NonNull long podMemoryLimit) throws ApiException {
+                                      @NonNull long podCpuLimit, @NonNull long podMemoryLimit,
+                                      long podCpuRequest, long podMemoryRequest,
+                                      Long activeDeadlineSeconds, V1Affinity affinity) throws ApiException {
 
         Map<String, Quantity> resourceLimits = new HashMap<>();
         resourceLimits.put("cpu", new Quantity((podCpuLimit) + "m")); //millicore
         resourceLimits.put("memory", new Quantity((podMemoryLimit) + "Ki")); //Mebibyte
 
+        Map<String, Quantity> resourceRequests = new HashMap<>();
+        resourceRequests.put("cpu", new Quantity(podCpuRequest + "m"));
+        resourceRequests.put("memory", new Quantity(podMemoryRequest + "Ki"));
+
         V1Container container = new V1ContainerBuilder()
                 .withName(podName)
                 .withImage(image)
                 .withNewResources()
                 .withLimits(resourceLimits)
+                .withRequests(resourceRequests)
                 .endResources()
                 .withImagePullPolicy("IfNotPresent")
                 .withNewStdin(true)
@@ -420,12 +817,15 @@ public class KubernetesClientImpl implements KubernetesClient {
                 .withNewSpec()
                 .withContainers(container)
                 .withRestartPolicy("Never")
+                .withActiveDeadlineSeconds(activeDeadlineSeconds)
+                .withAffinity(affinity)
                 .withImagePullSecrets(imagePullSecret)//sets the secret for accessing docker registry
                 .withHostNetwork(true)
                 .endSpec()
                 .build();
-        api.createNamespacedPod(namespace, pod, true, "pretty", null);
+        V1Pod createdPod = api.createNamespacedPod(namespace, pod, true, null, null);
         log.info("Created pod {} in Namespace {}", podName, namespace);
+        return createdPod;
     }
 
     /**
@@ -452,17 +852,184 @@ public class KubernetesClientImpl implements KubernetesClient {
         Map<String, byte[]> data = new HashMap<>();
         data.put(".dockerconfigjson", dockerCfg.getBytes());
         imagePullSecret.setData(data);
-        api.createNamespacedSecret(namespace, imagePullSecret, true, "pretty", null);
+        api.createNamespacedSecret(namespace, imagePullSecret, true, null, null);
         log.info("Created Image-Pull-Secret {} for Namespace {}", imagePullSecret.getMetadata().getName(),
                 namespace);
     }
 
     public void deleteNamespace(@NonNull String namespace) throws ApiException {
         V1DeleteOptions deleteOptions = new V1DeleteOptions();
-        api.deleteNamespace(namespace, "pretty", deleteOptions, null, null, null, null);
+        api.deleteNamespace(namespace, null, deleteOptions, null, null, null, null);
+        reservationLedger.releaseNamespace(namespace);
         log.info("Deleted namespace {}", namespace);
     }
 
+    /**
+     * Saves the pods of the pod informer as of the resourceVersion its watch can be resumed from, so a restarted
+     * instance does not have to list all pods again.
+     */
+    @Scheduled(fixedDelayString = "#{${kubernetes.informer.checkpoint-interval:60}*1000}")
+    @PreDestroy
+    public void checkpointPodInformer() {
+        final Checkpoint checkpoint = podListerWatcher.checkpoint();
+        if (checkpoint == null || checkpoint.getResourceVersion().equals(lastCheckpointVersion)) {
+            return;
+        }
+
+        informerCheckpointRepository.save(new InformerCheckpoint(POD_INFORMER, checkpoint.getResourceVersion(),
+                watchApi.getApiClient().getJSON().serialize(checkpoint.getPods()), LocalDateTime.now()));
+        lastCheckpointVersion = checkpoint.getResourceVersion();
+        log.debug("Saved checkpoint of the pod informer at resourceVersion {}", lastCheckpointVersion);
+    }
+
+    private void restorePodInformerCheckpoint() {
+        informerCheckpointRepository.findById(POD_INFORMER).ifPresent(checkpoint -> {
+            try {
+                final List<PodProjection> pods = watchApi.getApiClient().getJSON().deserialize(
+                        checkpoint.getSnapshot(), POD_PROJECTIONS_TYPE);
+                podListerWatcher.restore(new Checkpoint(checkpoint.getResourceVersion(), pods));
+                lastCheckpointVersion = checkpoint.getResourceVersion();
+                log.info("Resuming the pod informer with {} pods from resourceVersion {}", pods.size(),
+                        checkpoint.getResourceVersion());
+            } catch (JsonParseException e) {
+                log.warn("Could not restore the checkpoint of the pod informer, listing all pods instead.", e);
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void startImagePrePull(@NonNull ExperimentDetails experimentDetails) throws ApiException {
+        if (!prePullEnabled) {
+            return;
+        }
+
+        final String checksum = experimentDetails.getChecksum();
+        createPrePullNamespace();
+        try {
+            appsApi.createNamespacedDaemonSet(prePullNamespace,
+                    ImagePrePull.daemonSet(checksum, DOCKER_HUB_REPO_PATH + ":" + checksum, prePullPauseImage),
+                    true, null, null);
+            log.info("Started pre-pulling image {}:{} onto the nodes", DOCKER_HUB_REPO_PATH, checksum);
+        } catch (ApiException e) {
+            // the image is pre-pulled already
+            if (e.getCode() != HttpStatus.CONFLICT.value()) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ImagePrePullDTO retrieveImagePrePull(@NonNull ExperimentDetails experimentDetails) throws ApiException {
+        final String checksum = experimentDetails.getChecksum();
+        final String image = DOCKER_HUB_REPO_PATH + ":" + checksum;
+        if (!prePullEnabled) {
+            return new ImagePrePullDTO(image, 0, 0, true);
+        }
+
+        try {
+            final V1DaemonSet daemonSet = appsApi.readNamespacedDaemonSet(ImagePrePull.name(checksum),
+                    prePullNamespace, null, null, null);
+            return ImagePrePull.progress(image, daemonSet, listPrePullPods(checksum));
+        } catch (ApiException e) {
+            // the pre-pull completed and was removed, or never started
+            if (e.getCode() == HttpStatus.NOT_FOUND.value()) {
+                return new ImagePrePullDTO(image, 0, 0, true);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Automatically removes the DaemonSets of image pre-pulls in a fixed interval once the image was pulled onto all
+     * nodes or the pre-pull timed out, e.g. because the image can not be pulled on some node.
+     */
+    @Scheduled(fixedDelayString = "#{${kubernetes.prepull.check-interval:10}*1000}")
+    public void removeCompletedImagePrePulls() {
+        if (!prePullEnabled) {
+            return;
+        }
+
+        try {
+            final ChunkedListIterator<V1DaemonSet> daemonSets = new ChunkedListIterator<>((continueToken, limit) -> {
+                final V1DaemonSetList daemonSetList = appsApi.listNamespacedDaemonSet(prePullNamespace, null, null,
+                        continueToken, null, ImagePrePull.LABEL, limit, null, null, false);
+                return new Chunk<>(daemonSetList.getItems(), daemonSetList.getMetadata().getContinue(),
+                        daemonSetList.getMetadata().getResourceVersion());
+            }, apiListChunkSize);
+            while (daemonSets.hasNext()) {
+                final V1DaemonSet daemonSet = daemonSets.next();
+                final String checksum = daemonSet.getMetadata().getLabels().get(ImagePrePull.LABEL);
+                final ImagePrePullDTO progress = ImagePrePull.progress(DOCKER_HUB_REPO_PATH + ":" + checksum,
+                        daemonSet, listPrePullPods(checksum));
+                final boolean timedOut = daemonSet.getMetadata().getCreationTimestamp()
+                        .plusSeconds((int) prePullTimeout).isBeforeNow();
+
+                if (progress.isCompleted() || timedOut) {
+                    // the returned status is not deserialized, see https://github.com/kubernetes-client/java/issues/86
+                    appsApi.getApiClient().execute(appsApi.deleteNamespacedDaemonSetCall(
+                            daemonSet.getMetadata().getName(), prePullNamespace, null,
+                            new V1DeleteOptions().propagationPolicy("Background"), null, null, null, null, null,
+                            null));
+                    log.info("Pre-pulled image {} onto {} of {} nodes", progress.getImage(),
+                            progress.getPulledNodes(), progress.getNodes());
+                }
+            }
+        } catch (ApiException e) {
+            log.warn("An error occurred while checking the image pre-pulls.", e);
+        }
+    }
+
+    private List<V1Pod> listPrePullPods(@NonNull String checksum) throws ApiException {
+        return api.listNamespacedPod(prePullNamespace, null, null, null, null,
+                ImagePrePull.LABEL + "=" + checksum, null, null, null, false).getItems();
+    }
+
+    private void createPrePullNamespace() throws ApiException {
+        if (namespaceExists(prePullNamespace)) {
+            return;
+        }
+
+        // without a resource quota, as the pre-pulls do not belong to an experiment
+        try {
+            api.createNamespace(new V1NamespaceBuilder()
+                    .withNewMetadata()
+                    .withName(prePullNamespace)
+                    .endMetadata()
+                    .build(), true, null, null);
+            createImagePullSecretForNamespace(prePullNamespace);
+            log.info("Created namespace {} for image pre-pulls", prePullNamespace);
+        } catch (ApiException e) {
+            // created by a concurrent upload
+            if (e.getCode() != HttpStatus.CONFLICT.value()) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<ApiCallMetricsDTO> retrieveApiCallMetrics() {
+        return apiCallMetrics.snapshot();
+    }
+
+    private void validateRunning(@NonNull ExecutionDetails executionDetails) {
+        executionDetails.validatePermissions();
+
+        if (!executionDetails.getStatus().equals(ExecutionDetails.Status.RUNNING)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                    String.format("Found execution for id %s, but with status %s.", executionDetails.getId(),
+                            executionDetails.getStatus()));
+        }
+    }
+
     private String getNamespace(@NonNull ExecutionDetails executionDetails) {
         return executionDetails.getExperimentDetails().getId().toString();
     }
@@ -473,22 +1040,87 @@ public class KubernetesClientImpl implements KubernetesClient {
 
     private void deletePodInNamespace(@NonNull String namespace, @NonNull String podName) throws ApiException {
         V1DeleteOptions deleteOptions = new V1DeleteOptions();
-        api.deleteNamespacedPod(podName, namespace, "pretty", deleteOptions, null, null, null, null);
+        api.deleteNamespacedPod(podName, namespace, null, deleteOptions, null, null, null, null);
         log.info("Deleted pod {}", podName);
     }
 
 
-    private void createAndStartPodInformer() {
+    private void createPodInformer() {
 
         if (podInformer != null) {
             return;
         }
 
-        podInformer =
+        // the pod informer only caches slim projections and is therefore not registered at the factory
+        podListerWatcher = new PodProjectionListerWatcher(watchApi.getApiClient(),
+                MANAGED_BY_LABEL + "=" + MANAGED_BY_VALUE, apiProtobuf, apiListChunkSize);
+        restorePodInformerCheckpoint();
+        podInformer = new DefaultSharedIndexInformer<PodProjection, PodProjectionList>(PodProjection.class,
+                podListerWatcher, 0);
+
+        podInformer.addEventHandler(new PodEventHandler());
+        podInformer.addEventHandler(reservationLedger.podEventHandler());
+        podInformer.addEventHandler(attachSessionPool.podEventHandler());
+        podInformer.addEventHandler(logTailCache.podEventHandler());
+        podInformer.addEventHandler(capacityModel.podEventHandler());
+        podLister = new Lister<>(podInformer.getIndexer());
+    }
+
+    /**
+     * Adds the managed-by label to the execution pods created before the pod informer was scoped to it, so the
+     * informer keeps track of their status.
+     */
+    private void labelUnmanagedPods() {
+        final List<V1Pod> pods;
+        try {
+            pods = api.listPodForAllNamespaces(null, null, null, "run,!" + MANAGED_BY_LABEL, null, null, null,
+                    null, false).getItems();
+        } catch (ApiException e) {
+            log.warn("Could not list the unlabeled execution pods, they are not watched until the next restart.",
+                    e);
+            return;
+        }
+
+        for (V1Pod pod : pods) {
+            if (!isExperimentNamespace(pod.getMetadata().getNamespace())) {
+                continue;
+            }
+
+            pod.getMetadata().putLabelsItem(MANAGED_BY_LABEL, MANAGED_BY_VALUE);
+            try {
+                api.replaceNamespacedPod(pod.getMetadata().getName(), pod.getMetadata().getNamespace(), pod, null,
+                        null);
+                log.info("Labeled pod {} in namespace {} as managed by hafenkran", pod.getMetadata().getName(),
+                        pod.getMetadata().getNamespace());
+            } catch (ApiException e) {
+                log.warn("Could not label pod {} in namespace {}.", pod.getMetadata().getName(),
+                        pod.getMetadata().getNamespace(), e);
+            }
+        }
+    }
+
+    /**
+     * Checks if the namespace belongs to an experiment, which is named after the id of the experiment.
+     */
+    private static boolean isExperimentNamespace(String namespace) {
+        try {
+            return UUID.fromString(namespace).toString().equals(namespace);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private void createNodeInformer() {
+
+        if (nodeInformer != null) {
+            return;
+        }
+
+        nodeInformer =
                 factory.sharedIndexInformerFor(
                         (CallGeneratorParams params) -> {
                             try {
-                                return api.listPodForAllNamespacesCall(
+                                return watchApi.listNodeCall(
                                         null,
                                         null,
                                         null,
@@ -502,15 +1134,84 @@ public class KubernetesClientImpl implements KubernetesClient {
                                         null);
 
                             } catch (ApiException e) {
-                                throw new InternalServerErrorException("An error occurred while retrieving status " +
-                                        "updates for experiments.", e);
+                                throw new InternalServerErrorException("An error occurred while retrieving " +
+                                        "node updates.", e);
                             }
                         },
-                        V1Pod.class,
-                        V1PodList.class);
+                        V1Node.class,
+                        V1NodeList.class);
 
-        podInformer.addEventHandler(new PodEventHandler());
-        factory.startAllRegisteredInformers();
+        nodeInformer.addEventHandler(capacityModel.nodeEventHandler());
+        nodeInformer.addEventHandler(imageLocalityIndex.nodeEventHandler());
+    }
+
+    private void createNamespaceInformer() {
+
+        if (namespaceInformer != null) {
+            return;
+        }
+
+        namespaceInformer =
+                factory.sharedIndexInformerFor(
+                        (CallGeneratorParams params) -> {
+                            try {
+                                return watchApi.listNamespaceCall(
+                                        null,
+                                        null,
+                                        null,
+                                        null,
+                                        null,
+                                        null,
+                                        params.resourceVersion,
+                                        params.timeoutSeconds,
+                                        params.watch,
+                                        null,
+                                        null);
+
+                            } catch (ApiException e) {
+                                throw new InternalServerErrorException("An error occurred while retrieving " +
+                                        "namespace updates.", e);
+                            }
+                        },
+                        V1Namespace.class,
+                        V1NamespaceList.class);
+
+        namespaceLister = new Lister<>(namespaceInformer.getIndexer());
+    }
+
+    private void createResourceQuotaInformer() {
+
+        if (resourceQuotaInformer != null) {
+            return;
+        }
+
+        resourceQuotaInformer =
+                factory.sharedIndexInformerFor(
+                        (CallGeneratorParams params) -> {
+                            try {
+                                return watchApi.listResourceQuotaForAllNamespacesCall(
+                                        null,
+                                        "metadata.name=" + RESOURCE_QUOTA_NAME,
+                                        null,
+                                        null,
+                                        null,
+                                        null,
+                                        params.resourceVersion,
+                                        params.timeoutSeconds,
+                                        params.watch,
+                                        null,
+                                        null);
+
+                            } catch (ApiException e) {
+                                throw new InternalServerErrorException("An error occurred while retrieving " +
+                                        "resource quota updates.", e);
+                            }
+                        },
+                        V1ResourceQuota.class,
+                        V1ResourceQuotaList.class);
+
+        resourceQuotaInformer.addEventHandler(reservationLedger.resourceQuotaEventHandler());
+        resourceQuotaLister = new Lister<>(resourceQuotaInformer.getIndexer());
     }
 
 }
@@ -1,19 +1,33 @@
 package de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.impl;
 
+import de.unipassau.sep19.hafenkran.clusterservice.dto.ApiCallMetricsDTO;
+import de.unipassau.sep19.hafenkran.clusterservice.dto.ImagePrePullDTO;
+import de.unipassau.sep19.hafenkran.clusterservice.dto.NodeMetricsDTO;
+import de.unipassau.sep19.hafenkran.clusterservice.dto.ResultsMetadataDTO;
 import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.KubernetesClient;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.LogLine;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.LogSink;
 import de.unipassau.sep19.hafenkran.clusterservice.model.ExecutionDetails;
 import de.unipassau.sep19.hafenkran.clusterservice.model.ExperimentDetails;
 import io.kubernetes.client.ApiException;
 import io.kubernetes.client.models.V1Node;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.binary.Base64InputStream;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Component;
 
-import java.io.File;
+import java.io.Closeable;
 import java.io.IOException;
-import java.util.Scanner;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
 
 /**
  * Implementation of Kubernetes Mock Client for test purposes,
@@ -49,6 +63,16 @@ public class KubernetesClientMockImpl implements KubernetesClient {
         log.info(String.format("KubernetesClientMockImpl: Creating pod for %s", executionDetails.getId()));
     }
 
+    @Override
+    public Closeable followLogs(@NonNull ExecutionDetails executionDetails, @NonNull LogSink sink) throws IOException {
+        log.info(String.format("KubernetesClientMockImpl: Following the log of pod %s with id %s",
+                executionDetails.getPodName(), executionDetails.getId()));
+        sink.send(LogLine.parse(String.format("this is a test log for %s", executionDetails.getPodName())));
+        sink.complete();
+        return () -> {
+        };
+    }
+
     @Override
     public String retrieveLogs(@NonNull ExecutionDetails executionDetails, int lines, Integer sinceSeconds, boolean withTimestamp) {
         log.info(String.format(
@@ -58,21 +82,46 @@ public class KubernetesClientMockImpl implements KubernetesClient {
     }
 
     @Override
-    public String retrieveResults(@NonNull ExecutionDetails executionDetails) {
+    public CompletableFuture<String> retrieveLogsAsync(@NonNull ExecutionDetails executionDetails, int lines,
+                                                       Integer sinceSeconds, boolean withTimestamps) {
+        return CompletableFuture.completedFuture(retrieveLogs(executionDetails, lines, sinceSeconds, withTimestamps));
+    }
+
+    @Override
+    public CompletableFuture<Void> deletePodAsync(@NonNull ExecutionDetails executionDetails) {
+        deletePod(executionDetails);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public InputStream retrieveResults(@NonNull ExecutionDetails executionDetails) throws IOException {
         log.info(String.format("KubernetesClientMockImpl: Results retrieved from execution with id %s", executionDetails.getId()));
         Resource resource = new ClassPathResource("mockResultsTar");
 
+        // the mock results are stored Base64 encoded
+        return new Base64InputStream(resource.getInputStream());
+    }
+
+    @Override
+    public InputStream retrieveResults(@NonNull ExecutionDetails executionDetails, long offset, long length)
+            throws IOException {
+        final InputStream results = retrieveResults(executionDetails);
         try {
-            File file = resource.getFile();
-            StringBuilder sb = new StringBuilder();
-            Scanner sc = new Scanner(file);
-            sc.forEachRemaining(sb::append);
-            sc.close();
-            return sb.toString();
+            IOUtils.skipFully(results, offset);
         } catch (IOException e) {
-            e.printStackTrace();
+            IOUtils.closeQuietly(results);
+            throw e;
+        }
+        return new BoundedInputStream(results, length);
+    }
+
+    @Override
+    public ResultsMetadataDTO retrieveResultsMetadata(@NonNull ExecutionDetails executionDetails) throws IOException {
+        log.info(String.format("KubernetesClientMockImpl: Results metadata retrieved from execution with id %s", executionDetails.getId()));
+        try (CheckedInputStream is = new CheckedInputStream(retrieveResults(executionDetails), new CRC32())) {
+            long size = IOUtils.skip(is, Long.MAX_VALUE);
+            return new ResultsMetadataDTO(size, String.valueOf(is.getChecksum().getValue()));
         }
-        return "";
     }
 
     @Override
@@ -92,9 +141,27 @@ public class KubernetesClientMockImpl implements KubernetesClient {
     }
 
     @Override
-    public boolean checkIfEnoughNodeCapacityFree(@NonNull String nodeName, @NonNull long usedCpu,
-                                                 @NonNull long usedMemory) {
+    public boolean checkIfEnoughClusterCapacityFree() {
         log.info("KubernetesClientMockImpl: enough node capacity free.");
         return true;
     }
+
+    @Override
+    public void updateNodeUsage(@NonNull List<NodeMetricsDTO> nodeMetrics) {
+    }
+
+    @Override
+    public List<ApiCallMetricsDTO> retrieveApiCallMetrics() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void startImagePrePull(@NonNull ExperimentDetails experimentDetails) {
+        log.info(String.format("KubernetesClientMockImpl: Pre-pulling image of %s", experimentDetails.getId()));
+    }
+
+    @Override
+    public ImagePrePullDTO retrieveImagePrePull(@NonNull ExperimentDetails experimentDetails) {
+        return new ImagePrePullDTO(experimentDetails.getChecksum(), 0, 0, true);
+    }
 }
@@ -0,0 +1,202 @@
+package de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util;
+
+import com.squareup.okhttp.HttpUrl;
+import com.squareup.okhttp.Interceptor;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.Response;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Guards all calls to the Kubernetes api made through an api client.
+ * <p>
+ * Calls are rate limited by a token bucket per http method, so bursts are smoothed out before they reach the api
+ * server. Calls rejected with 429 and idempotent calls which failed with a 502, 503, 504 or a connection error are
+ * retried with a decorrelated jitter backoff, honoring the Retry-After header of the api server. The latency of every
+ * call is recorded in the {@link ApiCallMetrics}. Watches, followed logs and websocket streams are long-lived and
+ * therefore passed through as they are.
+ */
+@Slf4j
+public class ApiCallInterceptor implements Interceptor {
+
+    static final long BASE_BACKOFF_MILLIS = 100;
+
+    static final long MAX_BACKOFF_MILLIS = 5000;
+
+    private static final Set<String> IDEMPOTENT_METHODS = new HashSet<>(Arrays.asList("GET", "HEAD", "PUT"));
+
+    private static final Set<String> STREAMING_SUBRESOURCES = new HashSet<>(Arrays.asList("exec", "attach",
+            "portforward"));
+
+    private final double permitsPerSecond;
+
+    private final int burst;
+
+    private final int maxRetries;
+
+    @NonNull
+    private final ApiCallMetrics metrics;
+
+    @NonNull
+    private final Sleeper sleeper;
+
+    private final Map<String, TokenBucket> bucketsByMethod = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an interceptor.
+     *
+     * @param permitsPerSecond The sustained rate of calls per http method.
+     * @param burst            The amount of calls per http method which may be sent at once.
+     * @param maxRetries       The maximum amount of retries of a single call.
+     * @param metrics          The metrics the calls are recorded in.
+     */
+    public ApiCallInterceptor(double permitsPerSecond, int burst, int maxRetries, @NonNull ApiCallMetrics metrics) {
+        this(permitsPerSecond, burst, maxRetries, metrics, TimeUnit.MILLISECONDS::sleep);
+    }
+
+    ApiCallInterceptor(double permitsPerSecond, int burst, int maxRetries, @NonNull ApiCallMetrics metrics,
+                       @NonNull Sleeper sleeper) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.maxRetries = maxRetries;
+        this.metrics = metrics;
+        this.sleeper = sleeper;
+    }
+
+    /**
+     * Waits between retries.
+     */
+    @FunctionalInterface
+    interface Sleeper {
+
+        void sleep(long millis) throws InterruptedException;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        final Request request = chain.request();
+        if (isStreaming(request.httpUrl())) {
+            return chain.proceed(request);
+        }
+
+        final String method = request.method();
+        final TokenBucket bucket = bucketsByMethod.computeIfAbsent(method,
+                m -> new TokenBucket(permitsPerSecond, burst));
+        final long start = System.nanoTime();
+        long throttled = 0;
+        long backoff = BASE_BACKOFF_MILLIS;
+        int retries = 0;
+        Response response = null;
+
+        try {
+            while (true) {
+                throttled += bucket.acquire();
+
+                try {
+                    response = chain.proceed(request);
+                } catch (IOException e) {
+                    response = null;
+                    if (retries >= maxRetries || !IDEMPOTENT_METHODS.contains(method)) {
+                        throw e;
+                    }
+                    log.debug("Call {} {} failed, retrying it.", method, request.httpUrl().encodedPath(), e);
+                }
+
+                if (response != null && (retries >= maxRetries || !isRetryable(method, response.code()))) {
+                    return response;
+                }
+
+                backoff = nextBackoff(backoff);
+                long wait = backoff;
+                if (response != null) {
+                    wait = Math.max(wait, retryAfterMillis(response));
+                    log.debug("Call {} {} was answered with {}, retrying it in {} ms.", method,
+                            request.httpUrl().encodedPath(), response.code(), wait);
+                    response.body().close();
+                    response = null;
+                }
+                retries++;
+                sleeper.sleep(wait);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to call the Kubernetes api.");
+        } finally {
+            metrics.record(method, resourceOf(request.httpUrl()), System.nanoTime() - start,
+                    response == null ? 0 : response.code(), retries, throttled);
+        }
+    }
+
+    private static boolean isRetryable(String method, int code) {
+        // a throttled call was not processed, so even non-idempotent calls can be sent again
+        return code == 429 || ((code == 502 || code == 503 || code == 504) && IDEMPOTENT_METHODS.contains(method));
+    }
+
+    /**
+     * Returns a random backoff between the base backoff and three times the previous backoff, capped at the maximum
+     * backoff ("decorrelated jitter"), so retries of concurrent calls spread out instead of arriving in waves.
+     */
+    private static long nextBackoff(long previous) {
+        final long upper = Math.max(BASE_BACKOFF_MILLIS + 1, previous * 3);
+        return Math.min(MAX_BACKOFF_MILLIS, ThreadLocalRandom.current().nextLong(BASE_BACKOFF_MILLIS, upper));
+    }
+
+    private static long retryAfterMillis(Response response) {
+        final String retryAfter = response.header("Retry-After");
+        if (retryAfter == null) {
+            return 0;
+        }
+        try {
+            return Math.min(MAX_BACKOFF_MILLIS, TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim())));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static boolean isStreaming(HttpUrl url) {
+        final List<String> segments = url.pathSegments();
+        return "true".equals(url.queryParameter("watch")) || "true".equals(url.queryParameter("follow"))
+                || STREAMING_SUBRESOURCES.contains(segments.get(segments.size() - 1));
+    }
+
+    /**
+     * Returns the resource of a call with its subresource, e.g. {@code pods/log} for
+     * {@code /api/v1/namespaces/foo/pods/bar/log}, and its api group if it is not a core resource.
+     */
+    static String resourceOf(HttpUrl url) {
+        final List<String> segments = url.pathSegments();
+        final String group;
+        List<String> path;
+        if (segments.size() >= 2 && "api".equals(segments.get(0))) {
+            group = null;
+            path = segments.subList(2, segments.size());
+        } else if (segments.size() >= 3 && "apis".equals(segments.get(0))) {
+            group = segments.get(1);
+            path = segments.subList(3, segments.size());
+        } else {
+            return String.join("/", segments);
+        }
+
+        if (path.size() > 2 && "namespaces".equals(path.get(0))) {
+            path = path.subList(2, path.size());
+        }
+        if (path.isEmpty()) {
+            path = Collections.singletonList("");
+        }
+
+        final String resource = path.size() > 2 ? path.get(0) + "/" + path.get(2) : path.get(0);
+        return group == null ? resource : resource + "." + group;
+    }
+}
@@ -0,0 +1,104 @@
+package de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util;
+
+import de.unipassau.sep19.hafenkran.clusterservice.dto.ApiCallMetricsDTO;
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms and counters of the calls to the Kubernetes api, per verb and resource.
+ */
+public class ApiCallMetrics {
+
+    /**
+     * The upper bounds of the latency buckets in milliseconds.
+     */
+    static final long[] BUCKET_BOUNDS = {5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    private final Map<String, CallMetrics> metricsByCall = new ConcurrentHashMap<>();
+
+    /**
+     * Records a finished call, including all of its retries.
+     *
+     * @param verb       The http method of the call.
+     * @param resource   The resource of the call, e.g. {@code pods/log}.
+     * @param nanos      The latency of the call in nanoseconds.
+     * @param statusCode The status code of the final response, or 0 if no response was received.
+     * @param retries    The amount of retries of the call.
+     * @param throttled  The time in nanoseconds the call was delayed by the rate limiter.
+     */
+    public void record(@NonNull String verb, @NonNull String resource, long nanos, int statusCode, int retries,
+                       long throttled) {
+        final CallMetrics metrics = metricsByCall.computeIfAbsent(verb + " " + resource,
+                key -> new CallMetrics(verb, resource));
+
+        final long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS.length && millis > BUCKET_BOUNDS[bucket]) {
+            bucket++;
+        }
+        metrics.buckets[bucket].increment();
+        metrics.count.increment();
+        metrics.sumMillis.add(millis);
+        metrics.retries.add(retries);
+        metrics.throttledMillis.add(TimeUnit.NANOSECONDS.toMillis(throttled));
+        if (statusCode == 0 || statusCode >= 400) {
+            metrics.errors.increment();
+        }
+    }
+
+    /**
+     * Takes a snapshot of the metrics of all calls made so far.
+     *
+     * @return The metrics per verb and resource.
+     */
+    public List<ApiCallMetricsDTO> snapshot() {
+        final List<ApiCallMetricsDTO> snapshot = new ArrayList<>();
+        for (CallMetrics metrics : metricsByCall.values()) {
+            // cumulative like the buckets of a prometheus histogram
+            final Map<String, Long> buckets = new LinkedHashMap<>();
+            long cumulative = 0;
+            for (int i = 0; i < metrics.buckets.length; i++) {
+                cumulative += metrics.buckets[i].sum();
+                buckets.put(i < BUCKET_BOUNDS.length ? String.valueOf(BUCKET_BOUNDS[i]) : "+Inf", cumulative);
+            }
+            snapshot.add(new ApiCallMetricsDTO(metrics.verb, metrics.resource, metrics.count.sum(),
+                    metrics.errors.sum(), metrics.retries.sum(), metrics.sumMillis.sum(),
+                    metrics.throttledMillis.sum(), buckets));
+        }
+        return snapshot;
+    }
+
+    private static final class CallMetrics {
+
+        private final String verb;
+
+        private final String resource;
+
+        private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS.length + 1];
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder errors = new LongAdder();
+
+        private final LongAdder retries = new LongAdder();
+
+        private final LongAdder sumMillis = new LongAdder();
+
+        private final LongAdder throttledMillis = new LongAdder();
+
+        private CallMetrics(String verb, String resource) {
+            this.verb = verb;
+            this.resource = resource;
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util;
+
+import io.kubernetes.client.ApiCallback;
+import io.kubernetes.client.ApiException;
+import lombok.NonNull;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Completes a {@link CompletableFuture} with the result of an asynchronous call to the Kubernetes api.
+ *
+ * @param <T> The type of the result.
+ */
+public final class ApiFutureCallback<T> implements ApiCallback<T> {
+
+    private final CompletableFuture<T> future = new CompletableFuture<>();
+
+    private ApiFutureCallback() {
+    }
+
+    /**
+     * An asynchronous call to the Kubernetes api, e.g. one of the {@code *Async} methods of the {@link
+     * io.kubernetes.client.apis.CoreV1Api}.
+     *
+     * @param <T> The type of the result.
+     */
+    @FunctionalInterface
+    public interface AsyncApiCall<T> {
+
+        /**
+         * Enqueues the call.
+         *
+         * @param callback The callback to be notified once the call finished.
+         * @throws ApiException if the call could not be built.
+         */
+        void enqueue(ApiCallback<T> callback) throws ApiException;
+    }
+
+    /**
+     * Enqueues an asynchronous call to the Kubernetes api without blocking the calling thread.
+     *
+     * @param call The call to be enqueued.
+     * @param <T>  The type of the result.
+     * @return The future result of the call, completed exceptionally with the {@link ApiException} if the call failed.
+     */
+    public static <T> CompletableFuture<T> enqueue(@NonNull AsyncApiCall<T> call) {
+        final ApiFutureCallback<T> callback = new ApiFutureCallback<>();
+        try {
+            call.enqueue(callback);
+        } catch (ApiException | RuntimeException e) {
+            callback.future.completeExceptionally(e);
+        }
+        return callback.future;
+    }
+
+    @Override
+    public void onFailure(ApiException e, int statusCode, Map<String, List<String>> responseHeaders) {
+        future.completeExceptionally(e);
+    }
+
+    @Override
+    public void onSuccess(T result, int statusCode, Map<String, List<String>> responseHeaders) {
+        future.complete(result);
+    }
+
+    @Override
+    public void onUploadProgress(long bytesWritten, long contentLength, boolean done) {
+    }
+
+    @Override
+    public void onDownloadProgress(long bytesRead, long contentLength, boolean done) {
+    }
+}
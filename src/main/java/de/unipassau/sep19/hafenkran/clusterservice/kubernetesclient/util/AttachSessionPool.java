@@ -0,0 +1,165 @@
+package de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util;
+
+import io.kubernetes.client.ApiException;
+import io.kubernetes.client.Attach;
+import io.kubernetes.client.informer.ResourceEventHandler;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A pool of long-lived attach sessions to the stdin of execution pods, holding at most one session per pod.
+ * <p>
+ * Writing to the stdin of a pod reuses its open session, so each write only appends to the open stream instead of
+ * performing a websocket handshake. Writes to the same pod are serialized in the order they are made. Sessions are
+ * closed when they have been idle for too long, when writing to them fails or when their pod terminates or is
+ * deleted.
+ * <p>
+ * The sessions do not attach to the stdout and stderr of the pods, which are read from the logs instead.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class AttachSessionPool {
+
+    @NonNull
+    private final Attach attach;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Writes the given bytes to the stdin of a pod and flushes them, opening a session to the pod if there is none.
+     *
+     * @param namespace The namespace of the pod.
+     * @param podName   The name of the pod.
+     * @param bytes     The bytes to write.
+     * @throws IOException  if the bytes could not be written. The session is closed in that case.
+     * @throws ApiException if the session could not be opened.
+     */
+    public void write(@NonNull String namespace, @NonNull String podName, @NonNull byte[] bytes)
+            throws IOException, ApiException {
+        final String key = key(namespace, podName);
+
+        while (true) {
+            final Session session = sessions.computeIfAbsent(key, k -> new Session());
+            synchronized (session) {
+                if (session.closed) {
+                    // closed concurrently, retry with a new session
+                    continue;
+                }
+
+                try {
+                    if (session.result == null) {
+                        // only stdin is attached, the output of the pod would fill the small pipes of the
+                        // session and block its websocket as nobody reads it
+                        session.result = attach.attach(namespace, podName, null, true, false);
+                        session.stdin = session.result.getStandardInputStream();
+                        log.debug("Opened attach session to pod {} in namespace {}", podName, namespace);
+                    }
+                    session.stdin.write(bytes);
+                    session.stdin.flush();
+                    session.lastUsed = System.currentTimeMillis();
+                    return;
+                } catch (IOException | ApiException | RuntimeException e) {
+                    close(key, session);
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes the session to a pod, if there is one.
+     *
+     * @param namespace The namespace of the pod.
+     * @param podName   The name of the pod.
+     */
+    public void close(@NonNull String namespace, @NonNull String podName) {
+        final String key = key(namespace, podName);
+        final Session session = sessions.get(key);
+        if (session != null) {
+            synchronized (session) {
+                close(key, session);
+            }
+        }
+    }
+
+    /**
+     * Closes all sessions which have not been written to within the given time.
+     *
+     * @param maxIdleMillis The maximum time in milliseconds a session may stay idle.
+     */
+    public void evictIdle(long maxIdleMillis) {
+        final long now = System.currentTimeMillis();
+        sessions.forEach((key, session) -> {
+            synchronized (session) {
+                if (now - session.lastUsed > maxIdleMillis) {
+                    close(key, session);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns an event handler which closes the session of a pod once it terminated or was deleted.
+     *
+     * @return The event handler for the pod informer.
+     */
+    public ResourceEventHandler<PodProjection> podEventHandler() {
+        return new ResourceEventHandler<PodProjection>() {
+            @Override
+            public void onAdd(PodProjection pod) {
+            }
+
+            @Override
+            public void onUpdate(PodProjection oldPod, PodProjection newPod) {
+                if ("Succeeded".equals(newPod.getPhase()) || "Failed".equals(newPod.getPhase())) {
+                    close(newPod.getNamespace(), newPod.getName());
+                }
+            }
+
+            @Override
+            public void onDelete(PodProjection pod, boolean deletedFinalStateUnknown) {
+                close(pod.getNamespace(), pod.getName());
+            }
+        };
+    }
+
+    private void close(String key, Session session) {
+        session.closed = true;
+        sessions.remove(key, session);
+
+        if (session.result == null) {
+            return;
+        }
+        try {
+            session.stdin.close();
+        } catch (IOException e) {
+            log.debug("An error occurred while closing the stdin of attach session {}.", key, e);
+        }
+        session.result.close();
+        log.debug("Closed attach session {}", key);
+    }
+
+    private static String key(String namespace, String podName) {
+        return namespace + "/" + podName;
+    }
+
+    /**
+     * An attach session which is opened lazily by its first write. All fields are guarded by the session itself.
+     */
+    private static final class Session {
+
+        private Attach.AttachResult result;
+
+        private OutputStream stdin;
+
+        private long lastUsed = System.currentTimeMillis();
+
+        private boolean closed;
+    }
+}
@@ -0,0 +1,111 @@
+package de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util;
+
+import io.kubernetes.client.ApiException;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazily iterates a list of the Kubernetes api in chunks of a limited size by following the continue token of each
+ * chunk, so neither the api server nor we have to hold more than one chunk of the list at a time.
+ * <p>
+ * All chunks belong to the consistent snapshot of the first chunk. If the continue token expired before the
+ * iteration finished, the api server answers with {@code 410 Gone} and the list has to be iterated again.
+ *
+ * @param <T> The type of the listed items.
+ */
+@RequiredArgsConstructor
+public class ChunkedListIterator<T> {
+
+    @NonNull
+    private final ChunkLister<T> lister;
+
+    private final int chunkSize;
+
+    private Iterator<T> chunk = Collections.emptyIterator();
+
+    private String continueToken;
+
+    private boolean listed;
+
+    /**
+     * The resourceVersion of the snapshot the items belong to, or null if no chunk was listed yet.
+     */
+    @Getter
+    private String resourceVersion;
+
+    /**
+     * Lists a single chunk of a list.
+     *
+     * @param <T> The type of the listed items.
+     */
+    @FunctionalInterface
+    public interface ChunkLister<T> {
+
+        /**
+         * Lists the chunk starting at the given continue token.
+         *
+         * @param continueToken The continue token of the previous chunk, or null for the first chunk.
+         * @param limit         The maximum amount of items in the chunk.
+         * @return The chunk.
+         * @throws ApiException if the chunk could not be listed, e.g. because the continue token expired.
+         */
+        Chunk<T> list(String continueToken, int limit) throws ApiException;
+    }
+
+    /**
+     * A chunk of a list together with the continue token of the next chunk.
+     *
+     * @param <T> The type of the listed items.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static final class Chunk<T> {
+
+        @NonNull
+        private final List<T> items;
+
+        // null or empty if this is the last chunk
+        private final String continueToken;
+
+        private final String resourceVersion;
+    }
+
+    /**
+     * Checks if there are further items, listing the next chunk if the current one is exhausted.
+     *
+     * @return True if there are further items.
+     * @throws ApiException if the next chunk could not be listed.
+     */
+    public boolean hasNext() throws ApiException {
+        while (!chunk.hasNext() && (!listed || continueToken != null)) {
+            final Chunk<T> next = lister.list(continueToken, chunkSize);
+            if (!listed) {
+                resourceVersion = next.getResourceVersion();
+                listed = true;
+            }
+            continueToken = next.getContinueToken() == null || next.getContinueToken().isEmpty()
+                    ? null : next.getContinueToken();
+            chunk = next.getItems().iterator();
+        }
+        return chunk.hasNext();
+    }
+
+    /**
+     * Returns the next item, listing the next chunk if the current one is exhausted.
+     *
+     * @return The next item.
+     * @throws ApiException if the next chunk could not be listed.
+     */
+    public T next() throws ApiException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return chunk.next();
+    }
+}
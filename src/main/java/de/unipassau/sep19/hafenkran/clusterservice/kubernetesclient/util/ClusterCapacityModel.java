@@ -0,0 +1,292 @@
+package de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util;
+
+import de.unipassau.sep19.hafenkran.clusterservice.util.QuantityParser;
+import io.kubernetes.client.custom.Quantity;
+import io.kubernetes.client.informer.ResourceEventHandler;
+import io.kubernetes.client.models.V1Node;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An in-memory model of the free capacity of the cluster nodes.
+ * <p>
+ * The model combines the allocatable capacity of each node, the summed resource requests of the execution pods
+ * scheduled on it and its live usage reported by the metrics server, which also covers pods not created by this
+ * service. Nodes and pods are kept up to date by informer events, so checking the free capacity does not need any
+ * round trip to the cluster.
+ * <p>
+ * Pods placed onto a node by this service are assumed on that node until the informer reports them scheduled, so
+ * placements made in between do not count on the same capacity.
+ */
+public class ClusterCapacityModel {
+
+    private final Map<String, NodeCapacity> nodes = new ConcurrentHashMap<>();
+
+    private final Map<String, PodRequests> pods = new ConcurrentHashMap<>();
+
+    /**
+     * Checks if any schedulable node has enough free capacity for the requested resources. The free capacity of a
+     * node is its allocatable capacity minus the greater one of its summed pod requests and its live usage.
+     *
+     * @param cpu    The requested cpu in milliCores.
+     * @param memory The requested memory in Kibibyte.
+     * @return True if at least one node has enough free cpu and memory.
+     */
+    public boolean hasCapacityFor(long cpu, long memory) {
+        for (NodeCapacity node : nodes.values()) {
+            if (node.freeCpu() >= cpu && node.freeMemory() >= memory) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the free capacity of all schedulable nodes.
+     *
+     * @return The free capacity of each node.
+     */
+    public List<FreeCapacity> freeCapacities() {
+        final List<FreeCapacity> freeCapacities = new ArrayList<>();
+        for (Map.Entry<String, NodeCapacity> node : nodes.entrySet()) {
+            final NodeCapacity capacity = node.getValue();
+            if (capacity.allocatableCpu > 0 && capacity.allocatableMemory > 0) {
+                freeCapacities.add(new FreeCapacity(node.getKey(), capacity.allocatableCpu,
+                        capacity.allocatableMemory, capacity.freeCpu(), capacity.freeMemory()));
+            }
+        }
+        return freeCapacities;
+    }
+
+    /**
+     * Assumes the requests of a pod on the node it was placed onto, until the informer reports it scheduled.
+     *
+     * @param namespace The namespace of the pod.
+     * @param podName   The name of the pod.
+     * @param nodeName  The name of the node.
+     * @param cpu       The requested cpu in milliCores.
+     * @param memory    The requested memory in Kibibyte.
+     */
+    public void assume(@NonNull String namespace, @NonNull String podName, @NonNull String nodeName, long cpu,
+                       long memory) {
+        if (pods.putIfAbsent(key(namespace, podName), new PodRequests(nodeName, cpu, memory, true)) == null) {
+            addRequests(nodeName, cpu, memory);
+        }
+    }
+
+    /**
+     * Forgets the requests of a pod, e.g. because its creation failed after it was assumed.
+     *
+     * @param namespace The namespace of the pod.
+     * @param podName   The name of the pod.
+     */
+    public void forget(@NonNull String namespace, @NonNull String podName) {
+        removePod(key(namespace, podName));
+    }
+
+    /**
+     * Updates the live usage of a node.
+     *
+     * @param nodeName The name of the node.
+     * @param cpu      The used cpu in milliCores.
+     * @param memory   The used memory in Kibibyte.
+     */
+    public void updateUsage(@NonNull String nodeName, long cpu, long memory) {
+        nodes.computeIfPresent(nodeName, (name, node) -> node.withUsage(cpu, memory));
+    }
+
+    /**
+     * Returns an event handler which keeps the allocatable capacity of the nodes up to date.
+     *
+     * @return The event handler for the node informer.
+     */
+    public ResourceEventHandler<V1Node> nodeEventHandler() {
+        return new ResourceEventHandler<V1Node>() {
+            @Override
+            public void onAdd(V1Node node) {
+                updateNode(node);
+            }
+
+            @Override
+            public void onUpdate(V1Node oldNode, V1Node newNode) {
+                updateNode(newNode);
+            }
+
+            @Override
+            public void onDelete(V1Node node, boolean deletedFinalStateUnknown) {
+                nodes.remove(node.getMetadata().getName());
+            }
+        };
+    }
+
+    /**
+     * Returns an event handler which keeps the summed pod requests of the nodes up to date.
+     *
+     * @return The event handler for the pod informer.
+     */
+    public ResourceEventHandler<PodProjection> podEventHandler() {
+        return new ResourceEventHandler<PodProjection>() {
+            @Override
+            public void onAdd(PodProjection pod) {
+                updatePod(pod);
+            }
+
+            @Override
+            public void onUpdate(PodProjection oldPod, PodProjection newPod) {
+                updatePod(newPod);
+            }
+
+            @Override
+            public void onDelete(PodProjection pod, boolean deletedFinalStateUnknown) {
+                removePod(key(pod.getNamespace(), pod.getName()));
+            }
+        };
+    }
+
+    private void updateNode(V1Node node) {
+        final String nodeName = node.getMetadata().getName();
+        final Map<String, Quantity> allocatable = node.getStatus() == null
+                ? null
+                : node.getStatus().getAllocatable();
+        final boolean unschedulable = node.getSpec() != null && Boolean.TRUE.equals(node.getSpec().isUnschedulable());
+
+        // unschedulable nodes are kept for their requests but offer no capacity
+        final boolean schedulable = allocatable != null && !unschedulable;
+        final long cpu = schedulable ? toMilliCores(allocatable.get("cpu")) : 0;
+        final long memory = schedulable ? toKibibytes(allocatable.get("memory")) : 0;
+        nodes.merge(nodeName, NodeCapacity.EMPTY.withAllocatable(cpu, memory),
+                (current, ignored) -> current.withAllocatable(cpu, memory));
+    }
+
+    private void updatePod(PodProjection pod) {
+        final String key = key(pod.getNamespace(), pod.getName());
+        final String nodeName = pod.getNodeName();
+        final PodRequests current = pods.get(key);
+
+        if ("Succeeded".equals(pod.getPhase()) || "Failed".equals(pod.getPhase())) {
+            removePod(key);
+            return;
+        }
+
+        if (nodeName == null) {
+            // an assumed pod keeps its requests on the node it was placed onto until it is scheduled
+            if (current != null && !current.assumed) {
+                removePod(key);
+            }
+            return;
+        }
+
+        if (current != null && current.assumed) {
+            removePod(key);
+        }
+
+        // the requests of a scheduled pod can not change
+        if (pods.putIfAbsent(key, new PodRequests(nodeName, pod.getCpuRequests(), pod.getMemoryRequests(), false))
+                == null) {
+            addRequests(nodeName, pod.getCpuRequests(), pod.getMemoryRequests());
+        }
+    }
+
+    private void removePod(String key) {
+        final PodRequests requests = pods.remove(key);
+        if (requests != null) {
+            addRequests(requests.nodeName, -requests.cpu, -requests.memory);
+        }
+    }
+
+    private void addRequests(String nodeName, long cpu, long memory) {
+        nodes.merge(nodeName, NodeCapacity.EMPTY.withRequests(cpu, memory),
+                (current, ignored) -> current.withRequests(cpu, memory));
+    }
+
+    private static long toMilliCores(Quantity quantity) {
+        return quantity == null ? 0 : QuantityParser.toMilliCores(quantity);
+    }
+
+    private static long toKibibytes(Quantity quantity) {
+        return quantity == null ? 0 : QuantityParser.toKibibytes(quantity);
+    }
+
+    private static String key(String namespace, String podName) {
+        return namespace + "/" + podName;
+    }
+
+    /**
+     * The free and allocatable capacity of a node in milliCores and Kibibyte.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class FreeCapacity {
+
+        private final String nodeName;
+
+        private final long allocatableCpu;
+
+        private final long allocatableMemory;
+
+        private final long freeCpu;
+
+        private final long freeMemory;
+    }
+
+    @AllArgsConstructor
+    private static final class PodRequests {
+
+        private final String nodeName;
+
+        private final long cpu;
+
+        private final long memory;
+
+        // placed by this service, but not reported scheduled yet
+        private final boolean assumed;
+    }
+
+    /**
+     * Immutable capacity of a node in milliCores and Kibibyte, replaced as a whole on every change.
+     */
+    @AllArgsConstructor
+    private static final class NodeCapacity {
+
+        private static final NodeCapacity EMPTY = new NodeCapacity(0, 0, 0, 0, 0, 0);
+
+        private final long allocatableCpu;
+
+        private final long allocatableMemory;
+
+        private final long requestedCpu;
+
+        private final long requestedMemory;
+
+        private final long usedCpu;
+
+        private final long usedMemory;
+
+        private long freeCpu() {
+            return allocatableCpu - Math.max(requestedCpu, usedCpu);
+        }
+
+        private long freeMemory() {
+            return allocatableMemory - Math.max(requestedMemory, usedMemory);
+        }
+
+        private NodeCapacity withAllocatable(long cpu, long memory) {
+            return new NodeCapacity(cpu, memory, requestedCpu, requestedMemory, usedCpu, usedMemory);
+        }
+
+        private NodeCapacity withRequests(long cpu, long memory) {
+            return new NodeCapacity(allocatableCpu, allocatableMemory, requestedCpu + cpu, requestedMemory + memory,
+                    usedCpu, usedMemory);
+        }
+
+        private NodeCapacity withUsage(long cpu, long memory) {
+            return new NodeCapacity(allocatableCpu, allocatableMemory, requestedCpu, requestedMemory, cpu, memory);
+        }
+    }
+}
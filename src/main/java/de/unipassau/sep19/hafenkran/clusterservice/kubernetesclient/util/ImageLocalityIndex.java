@@ -0,0 +1,148 @@
+package de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util;
+
+import io.kubernetes.client.informer.ResourceEventHandler;
+import io.kubernetes.client.models.V1Affinity;
+import io.kubernetes.client.models.V1AffinityBuilder;
+import io.kubernetes.client.models.V1ContainerImage;
+import io.kubernetes.client.models.V1Node;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An in-memory index of the nodes which already hold the image of an experiment.
+ * <p>
+ * The index is fed by the images each node reports in its status, which are kept up to date by the node informer.
+ * Only images of the experiment repository are indexed. The kubelet reports a limited amount of images per node, so
+ * the index may miss some nodes holding an image, but never lists a node which does not.
+ */
+@RequiredArgsConstructor
+public class ImageLocalityIndex {
+
+    /**
+     * The weight of the preferred node affinity, the highest weight the scheduler allows.
+     */
+    public static final int AFFINITY_WEIGHT = 100;
+
+    private static final String DEFAULT_REGISTRY = "docker.io/";
+
+    private static final String DEFAULT_NAMESPACE = "library/";
+
+    private static final String NODE_NAME_FIELD = "metadata.name";
+
+    /**
+     * The repository of the experiment images, e.g. {@code hafenkran/experiments}.
+     */
+    @NonNull
+    private final String repository;
+
+    private final Map<String, Set<String>> imagesByNode = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the nodes which hold the given image.
+     *
+     * @param image The image, e.g. {@code hafenkran/experiments:checksum}.
+     * @return The names of the nodes, sorted by name.
+     */
+    public List<String> nodesWithImage(@NonNull String image) {
+        final String normalizedImage = normalize(image);
+        final List<String> nodeNames = new ArrayList<>();
+        for (Map.Entry<String, Set<String>> node : imagesByNode.entrySet()) {
+            if (node.getValue().contains(normalizedImage)) {
+                nodeNames.add(node.getKey());
+            }
+        }
+        Collections.sort(nodeNames);
+        return nodeNames;
+    }
+
+    /**
+     * Returns a node affinity which prefers the nodes holding the given image, so the pod can skip pulling it.
+     *
+     * @param image The image of the pod.
+     * @return The affinity, or null if no node holds the image yet.
+     */
+    public V1Affinity preferredAffinity(@NonNull String image) {
+        final List<String> nodeNames = nodesWithImage(image);
+        if (nodeNames.isEmpty()) {
+            return null;
+        }
+
+        // the node name is matched as a field, as the hostname label may differ from it
+        return new V1AffinityBuilder()
+                .withNewNodeAffinity()
+                .addNewPreferredDuringSchedulingIgnoredDuringExecution()
+                .withWeight(AFFINITY_WEIGHT)
+                .withNewPreference()
+                .addNewMatchField()
+                .withKey(NODE_NAME_FIELD)
+                .withOperator("In")
+                .withValues(nodeNames)
+                .endMatchField()
+                .endPreference()
+                .endPreferredDuringSchedulingIgnoredDuringExecution()
+                .endNodeAffinity()
+                .build();
+    }
+
+    /**
+     * Returns an event handler which keeps the images of the nodes up to date.
+     *
+     * @return The event handler for the node informer.
+     */
+    public ResourceEventHandler<V1Node> nodeEventHandler() {
+        return new ResourceEventHandler<V1Node>() {
+            @Override
+            public void onAdd(V1Node node) {
+                updateNode(node);
+            }
+
+            @Override
+            public void onUpdate(V1Node oldNode, V1Node newNode) {
+                updateNode(newNode);
+            }
+
+            @Override
+            public void onDelete(V1Node node, boolean deletedFinalStateUnknown) {
+                imagesByNode.remove(node.getMetadata().getName());
+            }
+        };
+    }
+
+    private void updateNode(V1Node node) {
+        final String prefix = normalize(repository) + ":";
+        final Set<String> images = new HashSet<>();
+        if (node.getStatus() != null && node.getStatus().getImages() != null) {
+            for (V1ContainerImage image : node.getStatus().getImages()) {
+                if (image.getNames() == null) {
+                    continue;
+                }
+                for (String name : image.getNames()) {
+                    final String normalizedName = normalize(name);
+                    if (normalizedName.startsWith(prefix)) {
+                        images.add(normalizedName);
+                    }
+                }
+            }
+        }
+        imagesByNode.put(node.getMetadata().getName(), Collections.unmodifiableSet(images));
+    }
+
+    /**
+     * Strips the default registry and namespace, which the kubelet may or may not report.
+     */
+    private static String normalize(String image) {
+        String normalized = image.startsWith(DEFAULT_REGISTRY) ? image.substring(DEFAULT_REGISTRY.length()) : image;
+        if (normalized.startsWith(DEFAULT_NAMESPACE)) {
+            normalized = normalized.substring(DEFAULT_NAMESPACE.length());
+        }
+        return normalized;
+    }
+}
@@ -0,0 +1,138 @@
+package de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util;
+
+import de.unipassau.sep19.hafenkran.clusterservice.dto.ImagePrePullDTO;
+import io.kubernetes.client.custom.Quantity;
+import io.kubernetes.client.models.V1Container;
+import io.kubernetes.client.models.V1ContainerBuilder;
+import io.kubernetes.client.models.V1ContainerStatus;
+import io.kubernetes.client.models.V1DaemonSet;
+import io.kubernetes.client.models.V1DaemonSetBuilder;
+import io.kubernetes.client.models.V1Pod;
+import lombok.NonNull;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the DaemonSets which pull the image of an experiment onto every node ahead of its first execution, and reads
+ * their progress.
+ * <p>
+ * The image is pulled by an init container which exits right away, afterwards a pause container keeps the pod alive
+ * so it is not restarted. A node counts as pulled once the init container reports the id of its image, even if the
+ * image can not run the command of the init container.
+ */
+public final class ImagePrePull {
+
+    /**
+     * The label of the DaemonSet and its pods, with the checksum of the pulled image as value.
+     */
+    public static final String LABEL = "hafenkran/prepull";
+
+    private static final String PULL_SECRET = "image-pull-secret";
+
+    private ImagePrePull() {
+    }
+
+    /**
+     * Returns the name of the DaemonSet pre-pulling an image.
+     *
+     * @param checksum The checksum the image is tagged with.
+     * @return The name of the DaemonSet.
+     */
+    public static String name(@NonNull String checksum) {
+        return "prepull-" + checksum;
+    }
+
+    /**
+     * Builds the DaemonSet which pre-pulls an image.
+     *
+     * @param checksum   The checksum the image is tagged with.
+     * @param image      The image to pull.
+     * @param pauseImage The image which keeps the pods alive after the pull.
+     * @return The DaemonSet.
+     */
+    public static V1DaemonSet daemonSet(@NonNull String checksum, @NonNull String image, @NonNull String pauseImage) {
+        final Map<String, String> labels = Collections.singletonMap(LABEL, checksum);
+
+        // the pods only wait, so they request next to nothing
+        final Map<String, Quantity> requests = new HashMap<>();
+        requests.put("cpu", new Quantity("1m"));
+        requests.put("memory", new Quantity("8Mi"));
+
+        final V1Container pull = new V1ContainerBuilder()
+                .withName("pull")
+                .withImage(image)
+                .withImagePullPolicy("IfNotPresent")
+                .withCommand("true")
+                .withNewResources().withRequests(requests).endResources()
+                .build();
+
+        final V1Container pause = new V1ContainerBuilder()
+                .withName("pause")
+                .withImage(pauseImage)
+                .withImagePullPolicy("IfNotPresent")
+                .withNewResources().withRequests(requests).endResources()
+                .build();
+
+        return new V1DaemonSetBuilder()
+                .withApiVersion("apps/v1")
+                .withKind("DaemonSet")
+                .withNewMetadata()
+                .withName(name(checksum))
+                .withLabels(labels)
+                .endMetadata()
+                .withNewSpec()
+                .withNewSelector().withMatchLabels(labels).endSelector()
+                .withNewTemplate()
+                .withNewMetadata().withLabels(labels).endMetadata()
+                .withNewSpec()
+                .withInitContainers(pull)
+                .withContainers(pause)
+                .addNewImagePullSecret().withName(PULL_SECRET).endImagePullSecret()
+                .withTerminationGracePeriodSeconds(0L)
+                .endSpec()
+                .endTemplate()
+                .endSpec()
+                .build();
+    }
+
+    /**
+     * Reads the progress of a DaemonSet pre-pulling an image.
+     *
+     * @param image     The pulled image.
+     * @param daemonSet The DaemonSet.
+     * @param pods      The pods of the DaemonSet.
+     * @return The progress.
+     */
+    public static ImagePrePullDTO progress(@NonNull String image, @NonNull V1DaemonSet daemonSet,
+                                           @NonNull List<V1Pod> pods) {
+        int pulledNodes = 0;
+        for (V1Pod pod : pods) {
+            if (isPulled(pod)) {
+                pulledNodes++;
+            }
+        }
+
+        final Integer desired = daemonSet.getStatus() == null ? null
+                : daemonSet.getStatus().getDesiredNumberScheduled();
+        // the controller did not schedule the pods yet
+        if (desired == null || desired == 0) {
+            return new ImagePrePullDTO(image, 0, pulledNodes, false);
+        }
+        return new ImagePrePullDTO(image, desired, pulledNodes, pulledNodes >= desired);
+    }
+
+    private static boolean isPulled(V1Pod pod) {
+        if (pod.getStatus() == null || pod.getStatus().getInitContainerStatuses() == null) {
+            return false;
+        }
+        for (V1ContainerStatus status : pod.getStatus().getInitContainerStatuses()) {
+            if (status.getImageID() != null && !status.getImageID().isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,64 @@
+package de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+/**
+ * A single line of a pod log as returned by Kubernetes with {@code timestamps=true}, split into its timestamp and its
+ * text.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class LogLine {
+
+    /**
+     * The timestamp as written by Kubernetes (RFC3339 with nanoseconds), or null if the line had none.
+     */
+    private final String timestamp;
+
+    /**
+     * The timestamp in milliseconds since the epoch, or the time the line was read if the line had no timestamp.
+     */
+    private final long epochMillis;
+
+    private final String text;
+
+    /**
+     * Parses a line of a log requested with timestamps.
+     *
+     * @param line The line, e.g. {@code 2019-11-21T14:02:03.123456789Z Epoch 1 done}.
+     * @return The parsed line.
+     */
+    public static LogLine parse(@NonNull String line) {
+        final int separator = line.indexOf(' ');
+        if (separator > 0) {
+            final String timestamp = line.substring(0, separator);
+            try {
+                return new LogLine(timestamp, Instant.parse(timestamp).toEpochMilli(), line.substring(separator + 1));
+            } catch (DateTimeParseException e) {
+                // not prefixed with a timestamp
+            }
+        }
+        return new LogLine(null, System.currentTimeMillis(), line);
+    }
+
+    /**
+     * Returns the line as Kubernetes would return it.
+     *
+     * @param withTimestamp Whether the line is prefixed with its timestamp.
+     * @return The line.
+     */
+    public String toString(boolean withTimestamp) {
+        return withTimestamp && timestamp != null ? timestamp + " " + text : text;
+    }
+
+    @Override
+    public String toString() {
+        return toString(true);
+    }
+}
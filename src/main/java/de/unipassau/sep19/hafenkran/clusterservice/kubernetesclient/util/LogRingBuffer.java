@@ -0,0 +1,212 @@
+package de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util;
+
+import lombok.NonNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A bounded in-memory tail of a pod log.
+ * <p>
+ * The lines are kept as UTF-8 bytes in a ring buffer together with their timestamps. An index of line offsets allows
+ * reading the last N lines in O(N) and finding the first line since a point in time by binary search. The buffer and
+ * its index start small and grow up to their capacity, so short logs do not take the full capacity. Once the buffer
+ * is full, the oldest lines are overwritten.
+ */
+public class LogRingBuffer {
+
+    private static final int INITIAL_CAPACITY = 4096;
+
+    private static final int INITIAL_LINE_CAPACITY = 64;
+
+    private final int capacity;
+
+    private final int lineCapacity;
+
+    private byte[] data;
+
+    // index of the buffered lines, a ring of its own
+    private long[] lineStarts;
+
+    private int[] lineLengths;
+
+    private int[] textOffsets;
+
+    private long[] lineTimes;
+
+    // absolute positions, which are mapped into the rings by modulo
+    private long writePosition;
+
+    private long firstLine;
+
+    private long endLine;
+
+    private boolean truncated;
+
+    /**
+     * Creates an empty buffer.
+     *
+     * @param capacity     The capacity in bytes.
+     * @param lineCapacity The maximum amount of lines.
+     * @param complete     Whether the buffer starts at the beginning of the log. Otherwise the lines logged before the
+     *                     first appended line are unknown, so only queries answered by the appended lines are covered.
+     */
+    public LogRingBuffer(int capacity, int lineCapacity, boolean complete) {
+        this.capacity = capacity;
+        this.lineCapacity = lineCapacity;
+        this.data = new byte[Math.min(capacity, INITIAL_CAPACITY)];
+        this.lineStarts = new long[Math.min(lineCapacity, INITIAL_LINE_CAPACITY)];
+        this.lineLengths = new int[lineStarts.length];
+        this.textOffsets = new int[lineStarts.length];
+        this.lineTimes = new long[lineStarts.length];
+        this.truncated = !complete;
+    }
+
+    /**
+     * Appends a line, overwriting the oldest lines if the buffer is full. Lines longer than the buffer are cut to
+     * their end.
+     *
+     * @param line The line to append.
+     */
+    public synchronized void append(@NonNull LogLine line) {
+        byte[] bytes = line.toString(true).getBytes(StandardCharsets.UTF_8);
+        int textOffset = line.getTimestamp() == null ? 0 : line.getTimestamp().length() + 1;
+        if (bytes.length > capacity) {
+            textOffset = Math.max(0, textOffset - (bytes.length - capacity));
+            bytes = Arrays.copyOfRange(bytes, bytes.length - capacity, bytes.length);
+        }
+        grow(bytes.length);
+
+        // evict the lines which are overwritten and the oldest line if the index is full
+        final long newWritePosition = writePosition + bytes.length;
+        while (firstLine < endLine
+                && (lineStarts[slot(firstLine)] < newWritePosition - data.length
+                || endLine - firstLine == lineStarts.length)) {
+            firstLine++;
+            truncated = true;
+        }
+
+        final int start = (int) (writePosition % data.length);
+        final int head = Math.min(bytes.length, data.length - start);
+        System.arraycopy(bytes, 0, data, start, head);
+        System.arraycopy(bytes, head, data, 0, bytes.length - head);
+
+        final int slot = slot(endLine);
+        lineStarts[slot] = writePosition;
+        lineLengths[slot] = bytes.length;
+        textOffsets[slot] = textOffset;
+        lineTimes[slot] = line.getEpochMillis();
+
+        writePosition = newWritePosition;
+        endLine++;
+    }
+
+    /**
+     * Checks if the buffer holds all lines a query may return, that is if no line has been overwritten or missed yet,
+     * or if enough lines since the requested time are buffered. An empty buffer only covers a complete log.
+     *
+     * @param lines        The amount of lines requested.
+     * @param sinceSeconds The optional time in seconds from where the lines are requested.
+     * @return True if the query can be answered from the buffer.
+     */
+    public synchronized boolean covers(int lines, Integer sinceSeconds) {
+        if (!truncated || endLine - firstLine >= lines) {
+            return true;
+        }
+        return sinceSeconds != null && firstLine < endLine
+                && lineTimes[slot(firstLine)] <= sinceMillis(sinceSeconds);
+    }
+
+    /**
+     * Reads the last lines of the buffered log.
+     *
+     * @param lines          The maximum amount of lines to be returned.
+     * @param sinceSeconds   The optional time in seconds from where the lines are returned.
+     * @param withTimestamps Whether every line is prefixed with its timestamp.
+     * @return The lines, each terminated by a line separator like in the Kubernetes log.
+     */
+    public synchronized String tail(int lines, Integer sinceSeconds, boolean withTimestamps) {
+        long from = Math.max(firstLine, endLine - Math.max(lines, 0));
+        if (sinceSeconds != null) {
+            from = Math.max(from, firstLineSince(sinceMillis(sinceSeconds)));
+        }
+
+        final StringBuilder builder = new StringBuilder();
+        for (long line = from; line < endLine; line++) {
+            final int slot = slot(line);
+            final int offset = withTimestamps ? 0 : textOffsets[slot];
+            builder.append(decode(lineStarts[slot] + offset, lineLengths[slot] - offset)).append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Grows the buffer and its index up to their capacity, if they are too small to hold another line of the given
+     * length without overwriting buffered lines.
+     */
+    private void grow(int length) {
+        final long usedBytes = firstLine < endLine ? writePosition - lineStarts[slot(firstLine)] : 0;
+        if (data.length < capacity && usedBytes + length > data.length) {
+            final int newCapacity = (int) Math.min(capacity, Math.max(2L * data.length, usedBytes + length));
+            final byte[] newData = new byte[newCapacity];
+            for (long position = writePosition - usedBytes; position < writePosition; position++) {
+                newData[(int) (position % newCapacity)] = data[(int) (position % data.length)];
+            }
+            data = newData;
+        }
+
+        if (lineStarts.length < lineCapacity && endLine - firstLine == lineStarts.length) {
+            final int newLineCapacity = (int) Math.min(lineCapacity, 2L * lineStarts.length);
+            final long[] newLineStarts = new long[newLineCapacity];
+            final int[] newLineLengths = new int[newLineCapacity];
+            final int[] newTextOffsets = new int[newLineCapacity];
+            final long[] newLineTimes = new long[newLineCapacity];
+            for (long line = firstLine; line < endLine; line++) {
+                final int newSlot = (int) (line % newLineCapacity);
+                newLineStarts[newSlot] = lineStarts[slot(line)];
+                newLineLengths[newSlot] = lineLengths[slot(line)];
+                newTextOffsets[newSlot] = textOffsets[slot(line)];
+                newLineTimes[newSlot] = lineTimes[slot(line)];
+            }
+            lineStarts = newLineStarts;
+            lineLengths = newLineLengths;
+            textOffsets = newTextOffsets;
+            lineTimes = newLineTimes;
+        }
+    }
+
+    private long firstLineSince(long sinceMillis) {
+        long low = firstLine;
+        long high = endLine;
+        while (low < high) {
+            final long middle = (low + high) >>> 1;
+            if (lineTimes[slot(middle)] < sinceMillis) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private String decode(long position, int length) {
+        final int start = (int) (position % data.length);
+        final int head = Math.min(length, data.length - start);
+        if (head == length) {
+            return new String(data, start, length, StandardCharsets.UTF_8);
+        }
+
+        final byte[] bytes = new byte[length];
+        System.arraycopy(data, start, bytes, 0, head);
+        System.arraycopy(data, 0, bytes, head, length - head);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int slot(long line) {
+        return (int) (line % lineStarts.length);
+    }
+
+    private static long sinceMillis(int sinceSeconds) {
+        return System.currentTimeMillis() - sinceSeconds * 1000L;
+    }
+}
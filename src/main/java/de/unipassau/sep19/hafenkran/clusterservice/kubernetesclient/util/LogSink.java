@@ -0,0 +1,22 @@
+package de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util;
+
+import java.io.IOException;
+
+/**
+ * A subscriber of a followed pod log, e.g. an open HTTP response.
+ */
+public interface LogSink {
+
+    /**
+     * Sends a single line of the log to the subscriber.
+     *
+     * @param line The log line.
+     * @throws IOException if the subscriber can not receive any further lines.
+     */
+    void send(LogLine line) throws IOException;
+
+    /**
+     * Called once the log ended, e.g. because the pod terminated. No further lines are sent afterwards.
+     */
+    void complete();
+}
@@ -0,0 +1,304 @@
+package de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util;
+
+import io.kubernetes.client.ApiException;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fans out followed pod logs to any number of subscribers while keeping a single log stream open per pod.
+ * <p>
+ * The stream of a pod is opened by its first subscriber and closed once its last subscriber left. Every subscriber
+ * has a bounded buffer of lines; if a subscriber can not keep up, the oldest buffered lines are dropped, so neither
+ * the log stream nor the heap is held up by slow subscribers. Subscribers which must not miss any line and never
+ * block, like the {@link LogTailCache}, are handed the lines directly instead.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class LogStreamHub {
+
+    @NonNull
+    private final LogStreamOpener opener;
+
+    @NonNull
+    private final Executor executor;
+
+    private final int subscriberBufferSize;
+
+    private final Map<String, LogStream> streams = new ConcurrentHashMap<>();
+
+    /**
+     * Opens the followed log stream of a pod.
+     */
+    @FunctionalInterface
+    public interface LogStreamOpener {
+
+        /**
+         * Opens the log of a pod in follow mode, with each line prefixed by its timestamp.
+         *
+         * @param namespace The namespace of the pod.
+         * @param podName   The name of the pod.
+         * @return The log stream, which ends once the pod terminated.
+         * @throws IOException  if the stream could not be opened.
+         * @throws ApiException if the stream could not be requested.
+         */
+        InputStream open(String namespace, String podName) throws IOException, ApiException;
+    }
+
+    /**
+     * Subscribes to the log of a pod, opening its log stream if no one else follows it yet.
+     *
+     * @param namespace The namespace of the pod.
+     * @param podName   The name of the pod.
+     * @param sink      The subscriber which receives all lines logged from now on.
+     * @return The subscription, which has to be closed once the subscriber leaves.
+     * @throws IOException                if the log stream could not be opened.
+     * @throws ApiException               if the log stream could not be requested.
+     * @throws RejectedExecutionException if the executor has no thread left to follow the log stream.
+     */
+    public Closeable subscribe(@NonNull String namespace, @NonNull String podName, @NonNull LogSink sink)
+            throws IOException, ApiException {
+        return subscribe(namespace, podName, new Subscriber(sink, false));
+    }
+
+    /**
+     * Subscribes to the log of a pod like {@link #subscribe(String, String, LogSink)}, but hands every line to the
+     * subscriber on the thread reading the log stream instead of buffering it. The subscriber receives every line,
+     * but must not block, as it holds up the log stream and all other subscribers.
+     *
+     * @param namespace The namespace of the pod.
+     * @param podName   The name of the pod.
+     * @param sink      The subscriber which receives all lines logged from now on.
+     * @return The subscription, which has to be closed once the subscriber leaves.
+     * @throws IOException                if the log stream could not be opened.
+     * @throws ApiException               if the log stream could not be requested.
+     * @throws RejectedExecutionException if the executor has no thread left to follow the log stream.
+     */
+    public Closeable subscribeDirect(@NonNull String namespace, @NonNull String podName, @NonNull LogSink sink)
+            throws IOException, ApiException {
+        return subscribe(namespace, podName, new Subscriber(sink, true));
+    }
+
+    private Closeable subscribe(String namespace, String podName, Subscriber subscriber)
+            throws IOException, ApiException {
+        final String key = namespace + "/" + podName;
+
+        LogStream stream;
+        do {
+            stream = streams.computeIfAbsent(key, k -> new LogStream(k, namespace, podName));
+        } while (!stream.add(subscriber));
+
+        try {
+            stream.open();
+        } catch (IOException | ApiException | RuntimeException e) {
+            stream.remove(subscriber);
+            throw e;
+        }
+
+        final LogStream subscribedStream = stream;
+        return () -> subscribedStream.remove(subscriber);
+    }
+
+    /**
+     * The single followed log stream of a pod and its subscribers.
+     */
+    @RequiredArgsConstructor
+    private final class LogStream {
+
+        private final String key;
+
+        private final String namespace;
+
+        private final String podName;
+
+        private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+        private InputStream input;
+
+        private boolean closed;
+
+        private synchronized boolean add(Subscriber subscriber) {
+            if (closed) {
+                return false;
+            }
+            subscribers.add(subscriber);
+            return true;
+        }
+
+        private synchronized void open() throws IOException, ApiException {
+            if (input != null || closed) {
+                return;
+            }
+            input = opener.open(namespace, podName);
+            final InputStream openedInput = input;
+            executor.execute(() -> pump(openedInput));
+            log.debug("Following log of pod {}", key);
+        }
+
+        private void remove(Subscriber subscriber) {
+            subscribers.remove(subscriber);
+            synchronized (this) {
+                if (subscribers.isEmpty()) {
+                    close();
+                }
+            }
+        }
+
+        private void pump(InputStream openedInput) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(openedInput,
+                    StandardCharsets.UTF_8))) {
+                String rawLine;
+                while ((rawLine = reader.readLine()) != null) {
+                    final LogLine line = LogLine.parse(rawLine);
+                    for (Subscriber subscriber : subscribers) {
+                        subscriber.offer(line);
+                    }
+                }
+            } catch (IOException e) {
+                log.debug("Log stream of pod {} ended.", key, e);
+            }
+
+            synchronized (this) {
+                close();
+            }
+            for (Subscriber subscriber : subscribers) {
+                subscriber.complete();
+            }
+        }
+
+        private void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            streams.remove(key, this);
+
+            if (input != null) {
+                try {
+                    input.close();
+                } catch (IOException e) {
+                    log.debug("An error occurred while closing the log stream of pod {}.", key, e);
+                }
+            }
+            log.debug("Stopped following log of pod {}", key);
+        }
+    }
+
+    /**
+     * A subscriber with its bounded buffer, which is drained on the executor by at most one task at a time. Direct
+     * subscribers are handed the lines right away instead.
+     */
+    @RequiredArgsConstructor
+    private final class Subscriber {
+
+        private final LogSink sink;
+
+        private final boolean direct;
+
+        private final ArrayDeque<LogLine> buffer = new ArrayDeque<>();
+
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private volatile boolean completed;
+
+        private volatile boolean failed;
+
+        private void offer(LogLine line) {
+            if (direct) {
+                send(line);
+                return;
+            }
+
+            synchronized (buffer) {
+                if (buffer.size() >= subscriberBufferSize) {
+                    // drop the oldest line instead of blocking the log stream
+                    buffer.pollFirst();
+                }
+                buffer.addLast(line);
+            }
+            scheduleDrain();
+        }
+
+        private void complete() {
+            completed = true;
+            if (direct) {
+                sink.complete();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        private void send(LogLine line) {
+            if (failed) {
+                return;
+            }
+            try {
+                sink.send(line);
+            } catch (IOException | RuntimeException e) {
+                log.debug("Could not send log line to subscriber, unsubscribing it.", e);
+                failed = true;
+            }
+        }
+
+        private void scheduleDrain() {
+            if (!failed && draining.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // the lines stay buffered until the next line or completion schedules a drain
+                    log.debug("Could not schedule sending log lines to subscriber, all threads are busy.", e);
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                final LogLine line;
+                synchronized (buffer) {
+                    line = buffer.pollFirst();
+                }
+
+                if (line == null) {
+                    if (completed) {
+                        // keeps draining set, so the sink is completed only once
+                        sink.complete();
+                        return;
+                    }
+                    draining.set(false);
+                    // lines offered or a completion after the buffer was found empty did not schedule a drain
+                    synchronized (buffer) {
+                        if ((buffer.isEmpty() && !completed) || !draining.compareAndSet(false, true)) {
+                            return;
+                        }
+                    }
+                    continue;
+                }
+
+                try {
+                    sink.send(line);
+                } catch (IOException | RuntimeException e) {
+                    log.debug("Could not send log line to subscriber, unsubscribing it.", e);
+                    failed = true;
+                    draining.set(false);
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util;
+
+import io.kubernetes.client.ApiException;
+import io.kubernetes.client.informer.ResourceEventHandler;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.IOUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Keeps a {@link LogRingBuffer} with the tail of the log of every running pod.
+ * <p>
+ * The buffers are fed by subscribing to the {@link LogStreamHub}, so the tail cache and all followers of a pod share
+ * a single log stream. A buffer is started once the pod informer reports the pod running and dropped once the pod
+ * terminated or was deleted. As the stream only delivers the lines logged from then on, a buffer does not know the
+ * lines logged before and only answers queries which its own lines cover.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class LogTailCache {
+
+    @NonNull
+    private final LogStreamHub logStreamHub;
+
+    private final int bufferCapacity;
+
+    private final int bufferLineCapacity;
+
+    private final Map<String, Tail> tails = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the buffered tail of the log of a pod.
+     *
+     * @param namespace The namespace of the pod.
+     * @param podName   The name of the pod.
+     * @return The buffer, or null if the log of the pod is not buffered.
+     */
+    public LogRingBuffer get(@NonNull String namespace, @NonNull String podName) {
+        final Tail tail = tails.get(key(namespace, podName));
+        return tail == null ? null : tail.buffer;
+    }
+
+    /**
+     * Returns an event handler which starts buffering the log of a pod once it is running and stops once it
+     * terminated or was deleted.
+     *
+     * @return The event handler for the pod informer.
+     */
+    public ResourceEventHandler<PodProjection> podEventHandler() {
+        return new ResourceEventHandler<PodProjection>() {
+            @Override
+            public void onAdd(PodProjection pod) {
+                update(pod);
+            }
+
+            @Override
+            public void onUpdate(PodProjection oldPod, PodProjection newPod) {
+                update(newPod);
+            }
+
+            @Override
+            public void onDelete(PodProjection pod, boolean deletedFinalStateUnknown) {
+                stop(key(pod.getNamespace(), pod.getName()));
+            }
+        };
+    }
+
+    private void update(PodProjection pod) {
+        final String key = key(pod.getNamespace(), pod.getName());
+        if ("Running".equals(pod.getPhase())) {
+            start(key, pod.getNamespace(), pod.getName());
+        } else if ("Succeeded".equals(pod.getPhase()) || "Failed".equals(pod.getPhase())) {
+            stop(key);
+        }
+    }
+
+    private void start(String key, String namespace, String podName) {
+        if (tails.containsKey(key)) {
+            return;
+        }
+
+        final Tail tail = new Tail(new LogRingBuffer(bufferCapacity, bufferLineCapacity, false));
+        tails.put(key, tail);
+        try {
+            // appending to the buffer does not block, so the lines are not buffered by the hub, where they could be
+            // dropped
+            tail.subscription = logStreamHub.subscribeDirect(namespace, podName, new LogSink() {
+                @Override
+                public void send(LogLine line) {
+                    tail.buffer.append(line);
+                }
+
+                @Override
+                public void complete() {
+                    tails.remove(key, tail);
+                }
+            });
+        } catch (IOException | ApiException | RejectedExecutionException e) {
+            log.warn("Could not follow the log of pod {}, its logs are read from the cluster.", key, e);
+            tails.remove(key, tail);
+        }
+    }
+
+    private void stop(String key) {
+        final Tail tail = tails.remove(key);
+        if (tail != null && tail.subscription != null) {
+            IOUtils.closeQuietly(tail.subscription);
+        }
+    }
+
+    private static String key(String namespace, String podName) {
+        return namespace + "/" + podName;
+    }
+
+    @RequiredArgsConstructor
+    private static final class Tail {
+
+        private final LogRingBuffer buffer;
+
+        private volatile Closeable subscription;
+    }
+}
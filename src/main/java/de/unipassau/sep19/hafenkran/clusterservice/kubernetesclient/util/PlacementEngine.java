@@ -0,0 +1,173 @@
+package de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util;
+
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.ClusterCapacityModel.FreeCapacity;
+import io.kubernetes.client.models.V1Affinity;
+import io.kubernetes.client.models.V1AffinityBuilder;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Places execution pods onto nodes by best-fit-decreasing, so the free capacity of the cluster is kept in as few
+ * and as large pieces as possible.
+ * <p>
+ * The pods are placed in decreasing order of their size. Each pod is placed onto the node which fits it best, that is
+ * the node which is left with the least and the most balanced free capacity, preferring nodes which already hold the
+ * image of the pod. The placed pods are assumed in the {@link ClusterCapacityModel} until the informer reports them
+ * scheduled, so placements made in the meantime do not count on the same capacity.
+ */
+@RequiredArgsConstructor
+public class PlacementEngine {
+
+    /**
+     * The weight of the imbalance of the free cpu and memory a placement leaves on a node, which is stranded.
+     */
+    private static final double FRAGMENTATION_WEIGHT = 0.5;
+
+    /**
+     * The bonus of a node which already holds the image of the pod.
+     */
+    private static final double IMAGE_WEIGHT = 0.25;
+
+    private static final String NODE_NAME_FIELD = "metadata.name";
+
+    @NonNull
+    private final ClusterCapacityModel capacityModel;
+
+    @NonNull
+    private final ImageLocalityIndex imageLocalityIndex;
+
+    /**
+     * A pod to be placed.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static final class Placement {
+
+        @NonNull
+        private final String namespace;
+
+        @NonNull
+        private final String podName;
+
+        @NonNull
+        private final String image;
+
+        // requests in milliCores and Kibibyte
+        private final long cpu;
+
+        private final long memory;
+    }
+
+    /**
+     * Places a single pod and assumes it on the chosen node.
+     *
+     * @param placement The pod to be placed.
+     * @return The name of the node, or null if no node has enough free capacity and the scheduler has to decide.
+     */
+    public String place(@NonNull Placement placement) {
+        return place(Collections.singletonList(placement)).get(placement);
+    }
+
+    /**
+     * Places several pods by best-fit-decreasing and assumes them on the chosen nodes.
+     *
+     * @param placements The pods to be placed.
+     * @return The names of the nodes by the placed pods. Pods which fit onto no node are missing.
+     */
+    public synchronized Map<Placement, String> place(@NonNull List<Placement> placements) {
+        final List<FreeCapacity> freeCapacities = capacityModel.freeCapacities();
+        final Map<String, long[]> free = new HashMap<>();
+        long maxCpu = 1;
+        long maxMemory = 1;
+        for (FreeCapacity node : freeCapacities) {
+            free.put(node.getNodeName(), new long[]{node.getFreeCpu(), node.getFreeMemory()});
+            maxCpu = Math.max(maxCpu, node.getAllocatableCpu());
+            maxMemory = Math.max(maxMemory, node.getAllocatableMemory());
+        }
+
+        // the size of a pod is its larger share of the largest node
+        final long largestCpu = maxCpu;
+        final long largestMemory = maxMemory;
+        final List<Placement> sorted = new ArrayList<>(placements);
+        sorted.sort(Comparator.comparingDouble((Placement placement) ->
+                Math.max((double) placement.cpu / largestCpu, (double) placement.memory / largestMemory)).reversed());
+
+        final Map<Placement, String> nodeNames = new LinkedHashMap<>();
+        for (Placement placement : sorted) {
+            final Set<String> nodesWithImage = new HashSet<>(imageLocalityIndex.nodesWithImage(placement.image));
+            FreeCapacity bestNode = null;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (FreeCapacity node : freeCapacities) {
+                final long[] nodeFree = free.get(node.getNodeName());
+                if (nodeFree[0] < placement.cpu || nodeFree[1] < placement.memory) {
+                    continue;
+                }
+
+                final double score = score(node, nodeFree, placement, nodesWithImage.contains(node.getNodeName()));
+                if (score > bestScore || (score == bestScore
+                        && node.getNodeName().compareTo(bestNode.getNodeName()) < 0)) {
+                    bestNode = node;
+                    bestScore = score;
+                }
+            }
+
+            if (bestNode != null) {
+                final long[] nodeFree = free.get(bestNode.getNodeName());
+                nodeFree[0] -= placement.cpu;
+                nodeFree[1] -= placement.memory;
+                capacityModel.assume(placement.namespace, placement.podName, bestNode.getNodeName(), placement.cpu,
+                        placement.memory);
+                nodeNames.put(placement, bestNode.getNodeName());
+            }
+        }
+        return nodeNames;
+    }
+
+    /**
+     * Returns an affinity which prefers the given node with the highest weight. The pod is not required to be
+     * scheduled there, as the model may overestimate the free capacity of the node, e.g. while the usage of the node
+     * is not sampled yet, and a pod which fits onto no other node would stay pending forever.
+     *
+     * @param nodeName The name of the node.
+     * @return The affinity.
+     */
+    public static V1Affinity preferredAffinity(@NonNull String nodeName) {
+        return new V1AffinityBuilder()
+                .withNewNodeAffinity()
+                .addNewPreferredDuringSchedulingIgnoredDuringExecution()
+                .withWeight(ImageLocalityIndex.AFFINITY_WEIGHT)
+                .withNewPreference()
+                .addNewMatchField()
+                .withKey(NODE_NAME_FIELD)
+                .withOperator("In")
+                .withValues(Collections.singletonList(nodeName))
+                .endMatchField()
+                .endPreference()
+                .endPreferredDuringSchedulingIgnoredDuringExecution()
+                .endNodeAffinity()
+                .build();
+    }
+
+    /**
+     * Scores the placement of a pod onto a node, the higher the better. The less free capacity is left and the more
+     * balanced it is, the better the pod fits.
+     */
+    private static double score(FreeCapacity node, long[] nodeFree, Placement placement, boolean hasImage) {
+        final double leftCpu = (double) (nodeFree[0] - placement.cpu) / node.getAllocatableCpu();
+        final double leftMemory = (double) (nodeFree[1] - placement.memory) / node.getAllocatableMemory();
+        final double fit = 1 - (leftCpu + leftMemory) / 2;
+        final double fragmentation = Math.abs(leftCpu - leftMemory);
+        return fit - FRAGMENTATION_WEIGHT * fragmentation + (hasImage ? IMAGE_WEIGHT : 0);
+    }
+}
@@ -4,108 +4,99 @@ import de.unipassau.sep19.hafenkran.clusterservice.config.SpringContext;
 import de.unipassau.sep19.hafenkran.clusterservice.model.ExecutionDetails;
 import de.unipassau.sep19.hafenkran.clusterservice.service.ExecutionService;
 import io.kubernetes.client.informer.ResourceEventHandler;
-import io.kubernetes.client.models.V1Pod;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
 
 /**
- * The EventHandler class for a kubernetes pod
+ * The EventHandler class for a kubernetes pod. Only receives events of pods created by this service, as the pod
+ * informer is restricted to their label.
  */
 @Slf4j
-public class PodEventHandler implements ResourceEventHandler<V1Pod> {
+public class PodEventHandler implements ResourceEventHandler<PodProjection> {
 
-    private ExecutionService executionService;
-
-    private List<String> excludedNamespaceList;
+    private static final String DEADLINE_EXCEEDED = "DeadlineExceeded";
 
-    public PodEventHandler() {
-        this.excludedNamespaceList = new ArrayList<>();
-        buildNamespaceExclusionList();
-    }
-
-    private void buildNamespaceExclusionList() {
-        excludedNamespaceList = Arrays.asList("kube-node-lease", "kube-public", "kube-system", "kubernetes-dashboard");
-    }
+    private ExecutionService executionService;
 
     @Override
-    public void onAdd(V1Pod pod) {
-        log.debug(String.format("Pod \"%s\" added!", pod.getMetadata().getName()));
+    public void onAdd(PodProjection pod) {
+        log.debug(String.format("Pod \"%s\" added!", pod.getName()));
         log.debug(String.format("Namespace of pod with name \"%s\" is: \"%s\"\n",
-                pod.getMetadata().getName(), pod.getMetadata().getNamespace()));
+                pod.getName(), pod.getNamespace()));
     }
 
     @Override
-    public void onUpdate(V1Pod oldPod, V1Pod newPod) {
+    public void onUpdate(PodProjection oldPod, PodProjection newPod) {
+        // relists answered from the cached pods redeliver every pod unchanged, which needs no lookup
+        if (Objects.equals(oldPod.getMetadata().getResourceVersion(), newPod.getMetadata().getResourceVersion())) {
+            return;
+        }
+
         ExecutionDetails execution = findExecutionOfPod(newPod);
-        String namespace = newPod.getMetadata().getNamespace();
 
-        /* Only change the status if the pod-lifecycle-phase changed, the execution status is
-        neither CANCELED nor ABORTED and the namespace of the pod is not excluded.*/
-        if (isUpdatable(oldPod, newPod, execution, namespace)) {
+        /* Only change the status if the pod-lifecycle-phase changed and the execution status is
+        neither CANCELED nor ABORTED.*/
+        if (isUpdatable(oldPod, newPod, execution)) {
             setExecutionStatus(newPod, execution.getId());
             log.debug(String.format(
                     "Pod with name \"%s\" and status \"%s\" updated to pod with name \"%s\" and status \"%s\"",
-                    oldPod.getMetadata().getName(), oldPod.getStatus().getPhase(),
-                    newPod.getMetadata().getName(), newPod.getStatus().getPhase()));
+                    oldPod.getName(), oldPod.getPhase(),
+                    newPod.getName(), newPod.getPhase()));
         }
     }
 
-    private boolean isUpdatable(V1Pod oldPod, V1Pod newPod, ExecutionDetails execution, String namespace) {
+    private boolean isUpdatable(PodProjection oldPod, PodProjection newPod, ExecutionDetails execution) {
         return execution != null
-                && !isExcludedNamespace(namespace)
                 && !execution.getStatus().equals(ExecutionDetails.Status.CANCELED)
                 && !execution.getStatus().equals(ExecutionDetails.Status.ABORTED)
-                && !oldPod.getStatus().getPhase().equals(newPod.getStatus().getPhase());
+                && !oldPod.getPhase().equals(newPod.getPhase());
     }
 
     @Override
-    public void onDelete(V1Pod pod, boolean deletedFinalStateUnknown) {
+    public void onDelete(PodProjection pod, boolean deletedFinalStateUnknown) {
         if (executionService == null) {
             this.executionService = SpringContext.getBean(ExecutionService.class);
         }
         ExecutionDetails execution = findExecutionOfPod(pod);
         executionService.updatePersistedResults(execution);
         log.debug(String.format("Pod with name \"%s\" has status \"%s\"",
-                pod.getMetadata().getName(), pod.getStatus().getPhase()));
-        log.debug(String.format("Pod with name \"%s\" deleted!\n", pod.getMetadata().getName()));
+                pod.getName(), pod.getPhase()));
+        log.debug(String.format("Pod with name \"%s\" deleted!\n", pod.getName()));
     }
 
-    private void setExecutionStatus(@NonNull V1Pod pod, @NonNull UUID executionId) {
+    private void setExecutionStatus(@NonNull PodProjection pod, @NonNull UUID executionId) {
         if (executionService == null) {
             this.executionService = SpringContext.getBean(ExecutionService.class);
         }
-        switch (pod.getStatus().getPhase()) {
+        switch (pod.getPhase()) {
         // Kubernetes status --> execution status
         // Running --> RUNNING
         case "Running":
             executionService.changeExecutionStatus(executionId, ExecutionDetails.Status.RUNNING);
+            executionService.recordPodStartup(executionId, pod);
             break;
         // Succeeded --> FINISHED
         case "Succeeded":
             executionService.changeExecutionStatus(executionId, ExecutionDetails.Status.FINISHED);
             break;
+        // Failed because the booked time was exceeded --> ABORTED
         // Failed --> FAILED
         case "Failed":
-            executionService.changeExecutionStatus(executionId, ExecutionDetails.Status.FAILED);
+            executionService.changeExecutionStatus(executionId, DEADLINE_EXCEEDED.equals(pod.getReason())
+                    ? ExecutionDetails.Status.ABORTED : ExecutionDetails.Status.FAILED);
         }
     }
 
-    private ExecutionDetails findExecutionOfPod(@NonNull V1Pod pod) {
+    private ExecutionDetails findExecutionOfPod(@NonNull PodProjection pod) {
         if (executionService == null) {
             this.executionService = SpringContext.getBean(ExecutionService.class);
         }
-        String namespace = pod.getMetadata().getNamespace();
-        String podName = pod.getMetadata().getName();
+        String namespace = pod.getNamespace();
+        String podName = pod.getName();
 
         return executionService.getExecutionOfPod(podName, UUID.fromString(namespace));
     }
-
-    private boolean isExcludedNamespace(@NonNull String namespace) {
-        return excludedNamespaceList != null && excludedNamespaceList.contains(namespace);
-    }
 }
@@ -0,0 +1,296 @@
+package de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util;
+
+import de.unipassau.sep19.hafenkran.clusterservice.util.QuantityParser;
+import io.kubernetes.client.custom.Quantity;
+import io.kubernetes.client.models.V1Container;
+import io.kubernetes.client.models.V1ContainerState;
+import io.kubernetes.client.models.V1ContainerStateRunning;
+import io.kubernetes.client.models.V1ContainerStateTerminated;
+import io.kubernetes.client.models.V1ContainerStatus;
+import io.kubernetes.client.models.V1ListMeta;
+import io.kubernetes.client.models.V1ObjectMeta;
+import io.kubernetes.client.models.V1Pod;
+import io.kubernetes.client.models.V1PodCondition;
+import io.kubernetes.client.models.V1PodList;
+import io.kubernetes.client.models.V1PodSpec;
+import io.kubernetes.client.models.V1PodStatus;
+import io.kubernetes.client.models.V1ResourceRequirements;
+import io.kubernetes.client.proto.Meta;
+import io.kubernetes.client.proto.Resource;
+import io.kubernetes.client.proto.V1;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NonNull;
+import org.joda.time.DateTime;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact, immutable record of the few fields of a {@link V1Pod} the service reads, which is kept in the pod
+ * informer cache instead of the full pod with its spec, managed fields and status conditions.
+ * <p>
+ * The metadata only contains name, namespace and resource version, which the informer needs for its keys and
+ * watches. It must not be modified.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class PodProjection {
+
+    private final V1ObjectMeta metadata;
+
+    private final String phase;
+
+    // why the pod is in its phase, e.g. DeadlineExceeded
+    private final String reason;
+
+    private final String nodeName;
+
+    private final DateTime startTime;
+
+    // points in time of the pod startup, see PodEventHandler
+    private final DateTime createdAt;
+
+    private final DateTime scheduledAt;
+
+    private final DateTime containerStartedAt;
+
+    private final DateTime containersReadyAt;
+
+    //in milliCores
+    private final long cpuRequests;
+
+    //in Kibibyte
+    private final long memoryRequests;
+
+    /**
+     * Creates the projection of a pod.
+     *
+     * @param pod The pod.
+     * @return The projection of the pod.
+     */
+    public static PodProjection of(@NonNull V1Pod pod) {
+        final V1ObjectMeta metadata = new V1ObjectMeta()
+                .name(pod.getMetadata().getName())
+                .namespace(pod.getMetadata().getNamespace())
+                .resourceVersion(pod.getMetadata().getResourceVersion());
+
+        long cpuRequests = 0;
+        long memoryRequests = 0;
+        if (pod.getSpec() != null) {
+            for (V1Container container : pod.getSpec().getContainers()) {
+                cpuRequests += request(container.getResources(), "cpu");
+                memoryRequests += request(container.getResources(), "memory");
+            }
+        }
+
+        return new PodProjection(metadata,
+                pod.getStatus() == null ? null : pod.getStatus().getPhase(),
+                pod.getStatus() == null ? null : pod.getStatus().getReason(),
+                pod.getSpec() == null ? null : pod.getSpec().getNodeName(),
+                pod.getStatus() == null ? null : pod.getStatus().getStartTime(),
+                pod.getMetadata().getCreationTimestamp(),
+                conditionTime(pod.getStatus(), "PodScheduled"),
+                containerStartedAt(pod.getStatus()),
+                conditionTime(pod.getStatus(), "ContainersReady"),
+                cpuRequests,
+                memoryRequests);
+    }
+
+    /**
+     * Creates the projection of a pod decoded from the protobuf wire format.
+     *
+     * @param pod The pod.
+     * @return The projection of the pod.
+     */
+    public static PodProjection of(@NonNull V1.Pod pod) {
+        return of(toV1Pod(pod));
+    }
+
+    public String getName() {
+        return metadata.getName();
+    }
+
+    public String getNamespace() {
+        return metadata.getNamespace();
+    }
+
+    /**
+     * Converts the fields of a protobuf pod which are projected into a model pod.
+     */
+    private static V1Pod toV1Pod(V1.Pod pod) {
+        final V1Pod converted = new V1Pod().metadata(new V1ObjectMeta()
+                .name(pod.getMetadata().getName())
+                .namespace(pod.getMetadata().getNamespace())
+                .resourceVersion(pod.getMetadata().getResourceVersion())
+                .creationTimestamp(pod.getMetadata().hasCreationTimestamp()
+                        ? toDateTime(pod.getMetadata().getCreationTimestamp()) : null));
+
+        if (pod.hasSpec()) {
+            final V1PodSpec spec = new V1PodSpec()
+                    .nodeName(pod.getSpec().hasNodeName() ? pod.getSpec().getNodeName() : null);
+            for (V1.Container container : pod.getSpec().getContainersList()) {
+                spec.addContainersItem(new V1Container().resources(new V1ResourceRequirements()
+                        .limits(toQuantities(container.getResources().getLimitsMap()))
+                        .requests(toQuantities(container.getResources().getRequestsMap()))));
+            }
+            converted.spec(spec);
+        }
+
+        if (pod.hasStatus()) {
+            final V1.PodStatus status = pod.getStatus();
+            final V1PodStatus convertedStatus = new V1PodStatus()
+                    .phase(status.hasPhase() ? status.getPhase() : null)
+                    .reason(status.hasReason() ? status.getReason() : null)
+                    .startTime(status.hasStartTime() ? toDateTime(status.getStartTime()) : null);
+            for (V1.PodCondition condition : status.getConditionsList()) {
+                convertedStatus.addConditionsItem(new V1PodCondition()
+                        .type(condition.getType())
+                        .status(condition.getStatus())
+                        .lastTransitionTime(condition.hasLastTransitionTime()
+                                ? toDateTime(condition.getLastTransitionTime()) : null));
+            }
+            for (V1.ContainerStatus containerStatus : status.getContainerStatusesList()) {
+                final V1.ContainerState state = containerStatus.getState();
+                convertedStatus.addContainerStatusesItem(new V1ContainerStatus().state(new V1ContainerState()
+                        .running(state.hasRunning() ? new V1ContainerStateRunning()
+                                .startedAt(toDateTime(state.getRunning().getStartedAt())) : null)
+                        .terminated(state.hasTerminated() ? new V1ContainerStateTerminated()
+                                .startedAt(toDateTime(state.getTerminated().getStartedAt())) : null)));
+            }
+            converted.status(convertedStatus);
+        }
+        return converted;
+    }
+
+    private static Map<String, Quantity> toQuantities(Map<String, Resource.Quantity> quantities) {
+        if (quantities.isEmpty()) {
+            return null;
+        }
+
+        final Map<String, Quantity> converted = new HashMap<>();
+        for (Map.Entry<String, Resource.Quantity> quantity : quantities.entrySet()) {
+            converted.put(quantity.getKey(), Quantity.fromString(quantity.getValue().getString()));
+        }
+        return converted;
+    }
+
+    private static DateTime toDateTime(Meta.Time time) {
+        return new DateTime(time.getSeconds() * 1000L + time.getNanos() / 1000000);
+    }
+
+    /**
+     * Returns the time the given condition of a pod became true.
+     */
+    private static DateTime conditionTime(V1PodStatus status, String type) {
+        if (status == null || status.getConditions() == null) {
+            return null;
+        }
+
+        for (V1PodCondition condition : status.getConditions()) {
+            if (type.equals(condition.getType()) && "True".equals(condition.getStatus())) {
+                return condition.getLastTransitionTime();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the time the first container of a pod started running, after its image was pulled.
+     */
+    private static DateTime containerStartedAt(V1PodStatus status) {
+        if (status == null || status.getContainerStatuses() == null) {
+            return null;
+        }
+
+        for (V1ContainerStatus containerStatus : status.getContainerStatuses()) {
+            final V1ContainerState state = containerStatus.getState();
+            if (state != null && state.getRunning() != null) {
+                return state.getRunning().getStartedAt();
+            }
+            if (state != null && state.getTerminated() != null) {
+                return state.getTerminated().getStartedAt();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the request of a container for the given resource. As in Kubernetes the limit is used if no request
+     * is set.
+     */
+    private static long request(V1ResourceRequirements resources, String resource) {
+        if (resources == null) {
+            return 0;
+        }
+
+        Quantity quantity = resources.getRequests() == null ? null : resources.getRequests().get(resource);
+        if (quantity == null && resources.getLimits() != null) {
+            quantity = resources.getLimits().get(resource);
+        }
+
+        if (quantity == null) {
+            return 0;
+        }
+        return "cpu".equals(resource) ? QuantityParser.toMilliCores(quantity) : QuantityParser.toKibibytes(quantity);
+    }
+
+    /**
+     * The list type of {@link PodProjection}s the informer syncs with.
+     */
+    @Getter
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    public static final class PodProjectionList {
+
+        private final V1ListMeta metadata;
+
+        private final List<PodProjection> items;
+
+        /**
+         * Creates the projection of a pod list.
+         *
+         * @param podList The pod list.
+         * @return The projection of the pod list.
+         */
+        public static PodProjectionList of(@NonNull V1PodList podList) {
+            final List<PodProjection> items = new ArrayList<>(podList.getItems().size());
+            for (V1Pod pod : podList.getItems()) {
+                items.add(PodProjection.of(pod));
+            }
+            return new PodProjectionList(podList.getMetadata(), Collections.unmodifiableList(items));
+        }
+
+        /**
+         * Creates the projection of a pod list decoded from the protobuf wire format.
+         *
+         * @param podList The pod list.
+         * @return The projection of the pod list.
+         */
+        public static PodProjectionList of(@NonNull V1.PodList podList) {
+            final List<PodProjection> items = new ArrayList<>(podList.getItemsCount());
+            for (V1.Pod pod : podList.getItemsList()) {
+                items.add(PodProjection.of(pod));
+            }
+            return new PodProjectionList(new V1ListMeta()
+                    .resourceVersion(podList.getMetadata().getResourceVersion())
+                    ._continue(podList.getMetadata().getContinue()),
+                    Collections.unmodifiableList(items));
+        }
+
+        /**
+         * Creates a list of already projected pods, e.g. of cached pods.
+         *
+         * @param resourceVersion The resourceVersion the list is at.
+         * @param items           The pods.
+         * @return The list.
+         */
+        public static PodProjectionList of(@NonNull String resourceVersion, @NonNull List<PodProjection> items) {
+            return new PodProjectionList(new V1ListMeta().resourceVersion(resourceVersion),
+                    Collections.unmodifiableList(items));
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util;
+
+import com.google.gson.reflect.TypeToken;
+import com.squareup.okhttp.Call;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.ChunkedListIterator.Chunk;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.PodProjection.PodProjectionList;
+import io.kubernetes.client.ApiClient;
+import io.kubernetes.client.ApiException;
+import io.kubernetes.client.Pair;
+import io.kubernetes.client.ProtoClient;
+import io.kubernetes.client.ProtoClient.ObjectOrStatus;
+import io.kubernetes.client.apis.CoreV1Api;
+import io.kubernetes.client.informer.ListerWatcher;
+import io.kubernetes.client.models.V1Pod;
+import io.kubernetes.client.models.V1PodList;
+import io.kubernetes.client.proto.V1;
+import io.kubernetes.client.util.CallGeneratorParams;
+import io.kubernetes.client.util.Watch;
+import io.kubernetes.client.util.Watchable;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * A {@link ListerWatcher} which lists and watches pods and hands them to the informer as {@link PodProjection}s, so
+ * the full pods are only kept for the time it takes to convert them.
+ * <p>
+ * The lister watcher keeps its own map of the pods as of the resourceVersion of the last list or watch event it handed
+ * to the informer, advanced by watch bookmarks in between. The informer cache can not be used for that, as the
+ * informer applies the events to it later on another thread. The map only references the projections which the
+ * informer caches as well. As long as the version is valid, a relist of the informer is answered from the map or a
+ * restored {@link Checkpoint} instead of listing all pods again, and the watch resumes where it stopped. Only once
+ * the api server answers the watch with an error, e.g. {@code 410 Gone} for an outdated version, the pods are listed
+ * from the api server again.
+ * <p>
+ * Lists may be requested in the protobuf wire format, which is smaller and faster to decode than JSON. The generated
+ * api only supports JSON, as does the watch. Either way, the pods are listed in chunks which are projected one after
+ * another, so only a single chunk of full pods is held at a time.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class PodProjectionListerWatcher implements ListerWatcher<PodProjection, PodProjectionList> {
+
+    private static final String BOOKMARK = "BOOKMARK";
+
+    private static final String ERROR = "ERROR";
+
+    private static final String DELETED = "DELETED";
+
+    @NonNull
+    private final ApiClient apiClient;
+
+    @NonNull
+    private final String labelSelector;
+
+    private final boolean protobuf;
+
+    private final int listChunkSize;
+
+    // the pods by namespace and name as of the resourceVersion, both guarded by the map
+    private final Map<String, PodProjection> pods = new HashMap<>();
+
+    // null if the pods have to be listed from the api server
+    private String resourceVersion;
+
+    /**
+     * The pods of the informer together with the resourceVersion the watch can be resumed from.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static final class Checkpoint {
+
+        @NonNull
+        private final String resourceVersion;
+
+        @NonNull
+        private final List<PodProjection> pods;
+    }
+
+    /**
+     * Restores the pods of a checkpoint, so the first list of the informer is answered by them and the watch resumes
+     * from the resourceVersion of the checkpoint.
+     *
+     * @param checkpoint The checkpoint saved by a previous instance.
+     */
+    public void restore(@NonNull Checkpoint checkpoint) {
+        synchronized (pods) {
+            replace(checkpoint.getResourceVersion(), checkpoint.getPods());
+        }
+    }
+
+    /**
+     * Takes a checkpoint of the pods as of the resourceVersion the watch can be resumed from.
+     *
+     * @return The checkpoint, or null if the pods have not been listed yet or have to be listed again.
+     */
+    public Checkpoint checkpoint() {
+        synchronized (pods) {
+            return resourceVersion == null ? null : new Checkpoint(resourceVersion, new ArrayList<>(pods.values()));
+        }
+    }
+
+    @Override
+    public PodProjectionList list(CallGeneratorParams params) throws ApiException {
+        synchronized (pods) {
+            if (resourceVersion != null) {
+                log.debug("Resuming the pod watch from resourceVersion {}", resourceVersion);
+                return PodProjectionList.of(resourceVersion, new ArrayList<>(pods.values()));
+            }
+        }
+
+        final ChunkedListIterator<PodProjection> listed = new ChunkedListIterator<>(protobuf
+                ? (continueToken, limit) -> listProtobuf(params, continueToken, limit)
+                : (continueToken, limit) -> list(params, continueToken, limit), listChunkSize);
+        final List<PodProjection> items = new ArrayList<>();
+        while (listed.hasNext()) {
+            items.add(listed.next());
+        }
+
+        synchronized (pods) {
+            replace(listed.getResourceVersion(), items);
+        }
+        return PodProjectionList.of(listed.getResourceVersion(), items);
+    }
+
+    private void replace(String version, List<PodProjection> items) {
+        pods.clear();
+        for (PodProjection pod : items) {
+            pods.put(key(pod), pod);
+        }
+        resourceVersion = version;
+    }
+
+    private static String key(PodProjection pod) {
+        return pod.getNamespace() + "/" + pod.getName();
+    }
+
+    private Chunk<PodProjection> list(CallGeneratorParams params, String continueToken, int limit)
+            throws ApiException {
+        // the chunks following the first one are bound to its snapshot by the continue token
+        final Call call = new CoreV1Api(apiClient).listPodForAllNamespacesCall(continueToken, null, null,
+                labelSelector, limit, null, continueToken == null ? params.resourceVersion : null,
+                params.timeoutSeconds, false, null, null);
+        final V1PodList podList = apiClient.<V1PodList>execute(call, V1PodList.class).getData();
+        return chunk(PodProjectionList.of(podList));
+    }
+
+    private Chunk<PodProjection> listProtobuf(CallGeneratorParams params, String continueToken, int limit)
+            throws ApiException {
+        final StringBuilder path = new StringBuilder("/api/v1/pods?labelSelector=").append(escape(labelSelector))
+                .append("&limit=").append(limit);
+        if (continueToken != null) {
+            path.append("&continue=").append(escape(continueToken));
+        } else if (params.resourceVersion != null) {
+            path.append("&resourceVersion=").append(escape(params.resourceVersion));
+        }
+        if (params.timeoutSeconds != null) {
+            path.append("&timeoutSeconds=").append(params.timeoutSeconds);
+        }
+
+        final ObjectOrStatus<V1.PodList> result;
+        try {
+            result = new ProtoClient(apiClient).list(V1.PodList.newBuilder(), path.toString());
+        } catch (IOException e) {
+            throw new ApiException(e);
+        }
+        if (result.object == null) {
+            throw new ApiException(result.status.getCode(), result.status.getMessage());
+        }
+
+        return chunk(PodProjectionList.of(result.object));
+    }
+
+    private static Chunk<PodProjection> chunk(PodProjectionList podList) {
+        return new Chunk<>(podList.getItems(), podList.getMetadata().getContinue(),
+                podList.getMetadata().getResourceVersion());
+    }
+
+    private static String escape(String value) {
+        try {
+            return URLEncoder.encode(value, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public Watchable<PodProjection> watch(CallGeneratorParams params) throws ApiException {
+        final List<Pair> queryParams = new ArrayList<>();
+        queryParams.addAll(apiClient.parameterToPair("labelSelector", labelSelector));
+        queryParams.addAll(apiClient.parameterToPair("resourceVersion", params.resourceVersion));
+        queryParams.addAll(apiClient.parameterToPair("timeoutSeconds", params.timeoutSeconds));
+        queryParams.addAll(apiClient.parameterToPair("watch", true));
+        // not known to the generated api yet, older api servers ignore it
+        queryParams.addAll(apiClient.parameterToPair("allowWatchBookmarks", true));
+
+        final Map<String, String> headerParams = new HashMap<>();
+        headerParams.put("Accept", "application/json");
+        final Call call = apiClient.buildCall("/api/v1/pods", "GET", queryParams, new ArrayList<>(), null,
+                headerParams, new HashMap<>(), new String[]{"BearerToken"}, null);
+
+        final Watch<V1Pod> watch = Watch.createWatch(apiClient, call,
+                new TypeToken<Watch.Response<V1Pod>>() {
+                }.getType());
+        return new ProjectingWatch(watch);
+    }
+
+    /**
+     * Projects the watched pods, applies them to the pods of the lister watcher and consumes the bookmarks, which the
+     * informer does not know.
+     */
+    @RequiredArgsConstructor
+    private class ProjectingWatch implements Watchable<PodProjection> {
+
+        private final Watch<V1Pod> watch;
+
+        private Watch.Response<PodProjection> nextResponse;
+
+        @Override
+        public boolean hasNext() {
+            while (nextResponse == null && watch.hasNext()) {
+                final Watch.Response<V1Pod> response = watch.next();
+                if (BOOKMARK.equals(response.type)) {
+                    if (response.object != null && response.object.getMetadata() != null) {
+                        synchronized (pods) {
+                            resourceVersion = response.object.getMetadata().getResourceVersion();
+                        }
+                    }
+                } else if (ERROR.equals(response.type) || response.object == null) {
+                    // e.g. 410 Gone, the informer stops the watch and lists the pods again
+                    synchronized (pods) {
+                        pods.clear();
+                        resourceVersion = null;
+                    }
+                    nextResponse = new Watch.Response<>(response.type, response.status);
+                } else {
+                    final PodProjection pod = PodProjection.of(response.object);
+                    apply(response.type, pod);
+                    nextResponse = new Watch.Response<>(response.type, pod);
+                }
+            }
+            return nextResponse != null;
+        }
+
+        /**
+         * Applies an event to the pods before it is handed to the informer, so a relist or checkpoint in between
+         * contains it. The informer replays it as an update of the same version in that case.
+         */
+        private void apply(String type, PodProjection pod) {
+            synchronized (pods) {
+                if (DELETED.equals(type)) {
+                    pods.remove(key(pod));
+                } else {
+                    pods.put(key(pod), pod);
+                }
+                resourceVersion = pod.getMetadata().getResourceVersion();
+            }
+        }
+
+        @Override
+        public Watch.Response<PodProjection> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            final Watch.Response<PodProjection> response = nextResponse;
+            nextResponse = null;
+            return response;
+        }
+
+        @Override
+        public Iterator<Watch.Response<PodProjection>> iterator() {
+            return this;
+        }
+
+        @Override
+        public void close() throws IOException {
+            watch.close();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util;
+
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Recommends the resource requests of an execution pod from the peak usage of past executions of the same
+ * experiment.
+ * <p>
+ * The request is a percentile of the past peaks plus some headroom, capped at the limit of the pod. Requests below the
+ * limit let the scheduler place more executions on the same nodes, while the limit still bounds each execution.
+ */
+public final class ResourceRequestRecommender {
+
+    private ResourceRequestRecommender() {
+    }
+
+    /**
+     * Recommends a request from the peak usage of past executions.
+     *
+     * @param peaks           The peak usage of each past execution.
+     * @param limit           The limit of the pod, which the request never exceeds.
+     * @param percentile      The percentile of the peaks, from 1 to 100.
+     * @param headroomPercent The headroom added to the percentile in percent.
+     * @return The recommended request, or null if there are no peaks.
+     */
+    public static Long recommend(@NonNull List<Long> peaks, long limit, int percentile, int headroomPercent) {
+        if (peaks.isEmpty()) {
+            return null;
+        }
+
+        final List<Long> sortedPeaks = new ArrayList<>(peaks);
+        Collections.sort(sortedPeaks);
+
+        // nearest-rank percentile
+        final int rank = (int) Math.ceil(Math.min(100, Math.max(1, percentile)) / 100.0 * sortedPeaks.size());
+        final long peak = sortedPeaks.get(Math.max(rank, 1) - 1);
+        final long request = (long) Math.ceil(peak * (1 + Math.max(0, headroomPercent) / 100.0));
+        return Math.max(1, Math.min(limit, request));
+    }
+}
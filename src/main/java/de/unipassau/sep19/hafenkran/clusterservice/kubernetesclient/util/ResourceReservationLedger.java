@@ -0,0 +1,355 @@
+package de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util;
+
+import de.unipassau.sep19.hafenkran.clusterservice.util.QuantityParser;
+import io.kubernetes.client.informer.ResourceEventHandler;
+import io.kubernetes.client.models.V1ResourceQuota;
+import lombok.AllArgsConstructor;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * An in-process ledger of the cpu and memory requests reserved in each experiment namespace.
+ * <p>
+ * Resources are reserved when an execution is admitted and released when its pod terminates or is deleted. The
+ * counters of a namespace are updated lock-free through compare-and-set, so concurrent admissions in the same
+ * namespace can not both pass on the same usage. The usage observed in the resource quota of a namespace is
+ * reconciled into the ledger, which also accounts for pods the ledger does not know about, e.g. after a restart.
+ * <p>
+ * A reservation is pending until the resource quota reflects its pod. Admission counts the observed usage plus all
+ * pending reservations, so a reservation is never missed, only counted twice for a while. The quota admission counts
+ * a pod before the pod is stored, so a quota with a newer resourceVersion than the pod reflects it and drops its
+ * reservation from the pending ones. Older quota events, which the informer may still deliver, keep it pending.
+ */
+@Slf4j
+public class ResourceReservationLedger {
+
+    private final long cpuLimit;
+
+    private final long memoryLimit;
+
+    private final Map<String, AtomicReference<Usage>> usageByNamespace = new ConcurrentHashMap<>();
+
+    // the reservations of each namespace by pod name
+    private final Map<String, Map<String, Reservation>> reservationsByNamespace = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a ledger for namespaces with the given limits.
+     *
+     * @param cpuLimit    The cpu requests limit of a namespace in milliCores.
+     * @param memoryLimit The memory requests limit of a namespace in Kibibyte.
+     */
+    public ResourceReservationLedger(long cpuLimit, long memoryLimit) {
+        this.cpuLimit = cpuLimit;
+        this.memoryLimit = memoryLimit;
+    }
+
+    /**
+     * Reserves the requested resources for a pod if they are still available in its namespace.
+     * Reserving again for an already reserved pod does not reserve any additional resources.
+     *
+     * @param namespace The namespace of the pod.
+     * @param podName   The name of the pod.
+     * @param cpu       The requested cpu in milliCores.
+     * @param memory    The requested memory in Kibibyte.
+     * @return True if the resources are reserved for the pod, false if the namespace limits would be exceeded.
+     */
+    public boolean reserve(@NonNull String namespace, @NonNull String podName, long cpu, long memory) {
+        final Map<String, Reservation> reservations = reservationsOf(namespace);
+        final Reservation reservation = new Reservation(namespace, cpu, memory);
+        if (reservations.putIfAbsent(podName, reservation) != null) {
+            return true;
+        }
+
+        final AtomicReference<Usage> usage = usageOf(namespace);
+        while (true) {
+            final Usage current = usage.get();
+            if (current.observedCpu + current.pendingCpu + cpu > cpuLimit
+                    || current.observedMemory + current.pendingMemory + memory > memoryLimit) {
+                reservations.remove(podName, reservation);
+                return false;
+            }
+            if (usage.compareAndSet(current, current.reserve(cpu, memory))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Checks if a pod of a namespace was created, but its reservation is still pending, because no newer quota usage
+     * was observed since. A fresh read of the resource quota then frees the reservation.
+     *
+     * @param namespace The namespace.
+     * @return True if a created pod awaits the quota usage.
+     */
+    public boolean awaitsQuota(@NonNull String namespace) {
+        return createdVersion(namespace) >= 0;
+    }
+
+    /**
+     * Returns the newest resourceVersion of the created pods of a namespace whose reservations are still pending.
+     * A resource quota read afterwards reflects all of these pods.
+     *
+     * @param namespace The namespace.
+     * @return The resourceVersion, or -1 if no created pod awaits the quota usage.
+     */
+    public long createdVersion(@NonNull String namespace) {
+        final Map<String, Reservation> reservations = reservationsByNamespace.get(namespace);
+        if (reservations == null) {
+            return -1;
+        }
+
+        long createdVersion = -1;
+        for (Reservation reservation : reservations.values()) {
+            if (reservation.state.get() == State.CREATED) {
+                createdVersion = Math.max(createdVersion, reservation.createdVersion);
+            }
+        }
+        return createdVersion;
+    }
+
+    /**
+     * Releases the resources reserved for a pod. Does nothing if there is no reservation for the pod.
+     *
+     * @param namespace The namespace of the pod.
+     * @param podName   The name of the pod.
+     */
+    public void release(@NonNull String namespace, @NonNull String podName) {
+        final Map<String, Reservation> reservations = reservationsByNamespace.get(namespace);
+        final Reservation reservation = reservations == null ? null : reservations.remove(podName);
+        if (reservation == null) {
+            return;
+        }
+
+        // a counted reservation is released by the quota usage once the pod is gone
+        final State state = reservation.state.getAndSet(State.RELEASED);
+        if (state == State.PENDING || state == State.CREATED) {
+            dropPending(reservation);
+        }
+    }
+
+    /**
+     * Releases all reservations of a namespace and forgets its counters.
+     *
+     * @param namespace The namespace.
+     */
+    public void releaseNamespace(@NonNull String namespace) {
+        reservationsByNamespace.remove(namespace);
+        usageByNamespace.remove(namespace);
+    }
+
+    /**
+     * Reconciles the usage reported by the resource quota of a namespace into the ledger.
+     *
+     * @param namespace      The namespace of the resource quota.
+     * @param observedCpu    The used cpu requests in milliCores.
+     * @param observedMemory The used memory requests in Kibibyte.
+     * @param countedVersion The newest resourceVersion of a created pod the usage reflects.
+     */
+    public void reconcile(@NonNull String namespace, long observedCpu, long observedMemory, long countedVersion) {
+        final AtomicReference<Usage> usage = usageOf(namespace);
+        Usage current;
+        do {
+            current = usage.get();
+        } while (!usage.compareAndSet(current, current.observe(observedCpu, observedMemory)));
+
+        // only after the usage is observed, so in between the pods are counted twice rather than not at all
+        final Map<String, Reservation> reservations = reservationsByNamespace.get(namespace);
+        if (reservations == null) {
+            return;
+        }
+
+        for (Reservation reservation : reservations.values()) {
+            if (reservation.state.get() == State.CREATED && reservation.createdVersion <= countedVersion
+                    && reservation.state.compareAndSet(State.CREATED, State.COUNTED)) {
+                dropPending(reservation);
+            }
+        }
+    }
+
+    /**
+     * Returns an event handler which marks the reservation of a pod as created once the pod exists, and releases it
+     * once the pod terminated or was deleted.
+     *
+     * @return The event handler for the pod informer.
+     */
+    public ResourceEventHandler<PodProjection> podEventHandler() {
+        return new ResourceEventHandler<PodProjection>() {
+            @Override
+            public void onAdd(PodProjection pod) {
+                update(pod);
+            }
+
+            @Override
+            public void onUpdate(PodProjection oldPod, PodProjection newPod) {
+                update(newPod);
+            }
+
+            @Override
+            public void onDelete(PodProjection pod, boolean deletedFinalStateUnknown) {
+                release(pod.getNamespace(), pod.getName());
+            }
+        };
+    }
+
+    /**
+     * Returns an event handler which reconciles the usage of resource quotas into the ledger.
+     *
+     * @return The event handler for the resource quota informer.
+     */
+    public ResourceEventHandler<V1ResourceQuota> resourceQuotaEventHandler() {
+        return new ResourceEventHandler<V1ResourceQuota>() {
+            @Override
+            public void onAdd(V1ResourceQuota resourceQuota) {
+                reconcile(resourceQuota);
+            }
+
+            @Override
+            public void onUpdate(V1ResourceQuota oldResourceQuota, V1ResourceQuota newResourceQuota) {
+                reconcile(newResourceQuota);
+            }
+
+            @Override
+            public void onDelete(V1ResourceQuota resourceQuota, boolean deletedFinalStateUnknown) {
+                reconcile(resourceQuota.getMetadata().getNamespace(), 0, 0, -1);
+            }
+        };
+    }
+
+    private void update(PodProjection pod) {
+        if ("Succeeded".equals(pod.getPhase()) || "Failed".equals(pod.getPhase())) {
+            release(pod.getNamespace(), pod.getName());
+            return;
+        }
+
+        // the quota admission counted the pod when it was created
+        final Map<String, Reservation> reservations = reservationsByNamespace.get(pod.getNamespace());
+        final Reservation reservation = reservations == null ? null : reservations.get(pod.getName());
+        if (reservation != null && reservation.state.get() == State.PENDING) {
+            // published before the state, so the version is set whenever the reservation is seen as created
+            reservation.createdVersion = version(pod.getMetadata().getResourceVersion());
+            reservation.state.compareAndSet(State.PENDING, State.CREATED);
+        }
+    }
+
+    private void dropPending(Reservation reservation) {
+        final AtomicReference<Usage> usage = usageByNamespace.get(reservation.namespace);
+        if (usage == null) {
+            return;
+        }
+
+        Usage current;
+        do {
+            current = usage.get();
+        } while (!usage.compareAndSet(current, current.reserve(-reservation.cpu, -reservation.memory)));
+    }
+
+    /**
+     * Reconciles the usage reported by a resource quota into the ledger. The usage reflects the pods which are older
+     * than the resource quota.
+     *
+     * @param resourceQuota The resource quota of a namespace.
+     */
+    public void reconcile(@NonNull V1ResourceQuota resourceQuota) {
+        reconcile(resourceQuota, -1);
+    }
+
+    /**
+     * Reconciles the usage reported by a resource quota into the ledger, which was read after the created pods up to
+     * the {@code createdVersion} were seen. Such a read reflects these pods, even if they are newer than the quota.
+     *
+     * @param resourceQuota  The resource quota of a namespace.
+     * @param createdVersion The result of {@link #createdVersion(String)} before the resource quota was read.
+     */
+    public void reconcile(@NonNull V1ResourceQuota resourceQuota, long createdVersion) {
+        final Map<String, String> used = resourceQuota.getStatus() == null
+                ? null
+                : resourceQuota.getStatus().getUsed();
+        if (used == null) {
+            return;
+        }
+
+        try {
+            final String usedCpu = used.get("requests.cpu");
+            final String usedMemory = used.get("requests.memory");
+            reconcile(resourceQuota.getMetadata().getNamespace(),
+                    usedCpu == null ? 0 : QuantityParser.parseMilliCores(usedCpu),
+                    usedMemory == null ? 0 : QuantityParser.parseKibibytes(usedMemory),
+                    Math.max(version(resourceQuota.getMetadata().getResourceVersion()) - 1, createdVersion));
+        } catch (NumberFormatException e) {
+            log.warn("Could not reconcile resource quota of namespace {}.",
+                    resourceQuota.getMetadata().getNamespace(), e);
+        }
+    }
+
+    private AtomicReference<Usage> usageOf(String namespace) {
+        return usageByNamespace.computeIfAbsent(namespace, ns -> new AtomicReference<>(Usage.EMPTY));
+    }
+
+    private Map<String, Reservation> reservationsOf(String namespace) {
+        return reservationsByNamespace.computeIfAbsent(namespace, ns -> new ConcurrentHashMap<>());
+    }
+
+    private static long version(String resourceVersion) {
+        // resourceVersions are etcd revisions, which are increasing integers
+        try {
+            return resourceVersion == null ? 0 : Long.parseLong(resourceVersion);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * {@code PENDING} means that the pod was not seen yet, {@code CREATED} that the pod exists but no newer quota
+     * usage was observed since, {@code COUNTED} that the quota usage reflects the pod and {@code RELEASED} that the
+     * reservation was released.
+     */
+    private enum State {
+        PENDING, CREATED, COUNTED, RELEASED
+    }
+
+    @RequiredArgsConstructor
+    private static final class Reservation {
+
+        private final String namespace;
+
+        private final long cpu;
+
+        private final long memory;
+
+        private final AtomicReference<State> state = new AtomicReference<>(State.PENDING);
+
+        // the resourceVersion of the pod when it was seen created
+        private volatile long createdVersion;
+    }
+
+    /**
+     * Immutable counters of a namespace, replaced as a whole on every change.
+     */
+    @AllArgsConstructor
+    private static final class Usage {
+
+        private static final Usage EMPTY = new Usage(0, 0, 0, 0);
+
+        // reservations which the quota usage does not reflect yet
+        private final long pendingCpu;
+
+        private final long pendingMemory;
+
+        private final long observedCpu;
+
+        private final long observedMemory;
+
+        private Usage reserve(long cpu, long memory) {
+            return new Usage(pendingCpu + cpu, pendingMemory + memory, observedCpu, observedMemory);
+        }
+
+        private Usage observe(long cpu, long memory) {
+            return new Usage(pendingCpu, pendingMemory, cpu, memory);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util;
+
+import de.unipassau.sep19.hafenkran.clusterservice.dto.StartupLatencyMetricsDTO;
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms of the phases of starting an execution, to see where the time of a cold start goes.
+ */
+public class StartupLatencyMetrics {
+
+    /**
+     * The upper bounds of the latency buckets in milliseconds, up to the minutes a large image pull may take.
+     */
+    static final long[] BUCKET_BOUNDS = {10, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000, 60000, 120000,
+            300000};
+
+    /**
+     * The phases of starting an execution, in their order.
+     */
+    public enum Phase {
+
+        /**
+         * Reserving the resources of the execution in the quota of its namespace.
+         */
+        QUOTA_CHECK,
+
+        /**
+         * Creating the pod by the api server.
+         */
+        POD_CREATION,
+
+        /**
+         * From the creation of the pod until it is bound to a node.
+         */
+        SCHEDULING,
+
+        /**
+         * From the binding of the pod until its container started, which is mostly pulling its image.
+         */
+        IMAGE_PULL,
+
+        /**
+         * From the start of the container until it is ready.
+         */
+        CONTAINER_START
+    }
+
+    private final Map<Phase, LongAdder[]> buckets = new EnumMap<>(Phase.class);
+
+    private final Map<Phase, LongAdder> sumMillis = new EnumMap<>(Phase.class);
+
+    /**
+     * Creates empty histograms for all phases.
+     */
+    public StartupLatencyMetrics() {
+        for (Phase phase : Phase.values()) {
+            final LongAdder[] phaseBuckets = new LongAdder[BUCKET_BOUNDS.length + 1];
+            for (int i = 0; i < phaseBuckets.length; i++) {
+                phaseBuckets[i] = new LongAdder();
+            }
+            buckets.put(phase, phaseBuckets);
+            sumMillis.put(phase, new LongAdder());
+        }
+    }
+
+    /**
+     * Records the latency of a phase of one startup.
+     *
+     * @param phase  The phase.
+     * @param millis The latency in milliseconds. Negative latencies of clocks out of sync are recorded as 0.
+     */
+    public void record(@NonNull Phase phase, long millis) {
+        final long latency = Math.max(0, millis);
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS.length && latency > BUCKET_BOUNDS[bucket]) {
+            bucket++;
+        }
+        buckets.get(phase)[bucket].increment();
+        sumMillis.get(phase).add(latency);
+    }
+
+    /**
+     * Takes a snapshot of the latencies recorded so far.
+     *
+     * @return The histograms per phase.
+     */
+    public List<StartupLatencyMetricsDTO> snapshot() {
+        final List<StartupLatencyMetricsDTO> snapshot = new ArrayList<>();
+        for (Phase phase : Phase.values()) {
+            final LongAdder[] phaseBuckets = buckets.get(phase);
+            final Map<String, Long> cumulativeBuckets = new LinkedHashMap<>();
+            long cumulative = 0;
+            for (int i = 0; i < phaseBuckets.length; i++) {
+                cumulative += phaseBuckets[i].sum();
+                cumulativeBuckets.put(i < BUCKET_BOUNDS.length ? String.valueOf(BUCKET_BOUNDS[i]) : "+Inf",
+                        cumulative);
+            }
+            snapshot.add(new StartupLatencyMetricsDTO(phase, cumulative, sumMillis.get(phase).sum(),
+                    cumulativeBuckets));
+        }
+        return snapshot;
+    }
+}
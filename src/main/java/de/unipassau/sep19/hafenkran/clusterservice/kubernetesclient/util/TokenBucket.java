@@ -0,0 +1,74 @@
+package de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util;
+
+import lombok.NonNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * A token bucket which limits the rate of requests while allowing short bursts.
+ * <p>
+ * The bucket is refilled with {@code permitsPerSecond} tokens per second up to {@code burst} tokens. Requests reserve
+ * a token and wait until it is available, so waiting requests are served in the order they arrived.
+ */
+public class TokenBucket {
+
+    private final double permitsPerNano;
+
+    private final double burst;
+
+    private final LongSupplier nanoTime;
+
+    private double tokens;
+
+    private long lastRefill;
+
+    /**
+     * Creates a full token bucket.
+     *
+     * @param permitsPerSecond The sustained rate of requests.
+     * @param burst            The amount of requests which may be sent at once.
+     */
+    public TokenBucket(double permitsPerSecond, int burst) {
+        this(permitsPerSecond, burst, System::nanoTime);
+    }
+
+    TokenBucket(double permitsPerSecond, int burst, @NonNull LongSupplier nanoTime) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("The rate and burst of a token bucket have to be positive.");
+        }
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = burst;
+        this.nanoTime = nanoTime;
+        this.tokens = burst;
+        this.lastRefill = nanoTime.getAsLong();
+    }
+
+    /**
+     * Reserves a token, which may be borrowed from the future if the bucket is empty.
+     *
+     * @return The time in nanoseconds to wait until the reserved token is available.
+     */
+    public synchronized long reserve() {
+        final long now = nanoTime.getAsLong();
+        tokens = Math.min(burst, tokens + (now - lastRefill) * permitsPerNano);
+        lastRefill = now;
+
+        tokens -= 1;
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / permitsPerNano);
+    }
+
+    /**
+     * Takes a token, waiting until one is available.
+     *
+     * @return The time in nanoseconds waited.
+     * @throws InterruptedException if the thread was interrupted while waiting.
+     */
+    public long acquire() throws InterruptedException {
+        final long wait = reserve();
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+        return wait;
+    }
+}
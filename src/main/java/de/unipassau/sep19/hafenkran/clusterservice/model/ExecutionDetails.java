@@ -52,6 +52,16 @@ public class ExecutionDetails extends Resource {
     @Basic
     private LocalDateTime terminatedAt;
 
+    // startup of the pod after its creation at startedAt
+    @Basic
+    private LocalDateTime scheduledAt;
+
+    @Basic
+    private LocalDateTime containerStartedAt;
+
+    @Basic
+    private LocalDateTime readyAt;
+
     @NonNull
     @Enumerated(EnumType.STRING)
     private Status status;
@@ -62,6 +72,24 @@ public class ExecutionDetails extends Resource {
 
     private long bookedTime;
 
+    // seconds after which the cluster stops the pod, null if it is stopped by the scheduler of this service
+    @Basic
+    private Long activeDeadlineSeconds;
+
+    // requests below the limits recommended from past executions, null if the limits are requested
+    @Basic
+    private Long cpuRequest;
+
+    @Basic
+    private Long ramRequest;
+
+    // peak usage sampled from the metrics server, null if never sampled
+    @Basic
+    private Long peakCpu;
+
+    @Basic
+    private Long peakRam;
+
     public ExecutionDetails(@NonNull UUID ownerId, @NonNull ExperimentDetails experimentDetails,
                             @NonNull String name, long ram,
                             long cpu, long bookedTime) {
@@ -80,6 +108,24 @@ public class ExecutionDetails extends Resource {
         this(experimentDetails.getId(), experimentDetails, name, ram, cpu, bookedTime);
     }
 
+    /**
+     * Returns the cpu requested for the pod, which is the recommended request if any or the limit otherwise.
+     *
+     * @return The requested cpu in milliCores.
+     */
+    public long requestedCpu() {
+        return cpuRequest != null ? cpuRequest : cpu;
+    }
+
+    /**
+     * Returns the memory requested for the pod, which is the recommended request if any or the limit otherwise.
+     *
+     * @return The requested memory in Kibibyte.
+     */
+    public long requestedRam() {
+        return ramRequest != null ? ramRequest : ram;
+    }
+
     /**
      * Where {@code RUNNING} means that the execution is currently running.
      * {@code FINISHED} means that the execution finished successfully. {@code
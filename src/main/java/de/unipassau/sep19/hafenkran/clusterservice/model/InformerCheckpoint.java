@@ -0,0 +1,42 @@
+package de.unipassau.sep19.hafenkran.clusterservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * {@code InformerCheckpoint} saves the cached objects of an informer together with the resourceVersion its watch can
+ * be resumed from, so a restarted instance does not have to list all objects from the cluster again.
+ */
+@Data
+@Table(name = "informercheckpoint")
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+public class InformerCheckpoint {
+
+    @Id
+    @NonNull
+    @Column(nullable = false)
+    private String informer;
+
+    @NonNull
+    @Column(nullable = false)
+    private String resourceVersion;
+
+    /**
+     * The cached objects as JSON.
+     */
+    @Lob
+    @NonNull
+    @Column(nullable = false)
+    private String snapshot;
+
+    @NonNull
+    @Column(nullable = false)
+    private LocalDateTime savedAt;
+}
@@ -18,6 +18,9 @@ public interface ExecutionRepository extends CrudRepository<ExecutionDetails, UU
 
     List<ExecutionDetails> findAllByStatus(@NonNull ExecutionDetails.Status status);
 
+    List<ExecutionDetails> findTop20ByExperimentDetails_IdAndStatusAndPeakCpuNotNullOrderByStartedAtDesc(
+            @NonNull UUID experimentId, @NonNull ExecutionDetails.Status status);
+
     @org.springframework.lang.NonNull
     List<ExecutionDetails> findAll();
 
@@ -0,0 +1,9 @@
+package de.unipassau.sep19.hafenkran.clusterservice.repository;
+
+import de.unipassau.sep19.hafenkran.clusterservice.model.InformerCheckpoint;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface InformerCheckpointRepository extends CrudRepository<InformerCheckpoint, String> {
+}
@@ -3,12 +3,20 @@ package de.unipassau.sep19.hafenkran.clusterservice.service;
 import de.unipassau.sep19.hafenkran.clusterservice.dto.ExecutionCreateDTO;
 import de.unipassau.sep19.hafenkran.clusterservice.dto.ExecutionDTO;
 import de.unipassau.sep19.hafenkran.clusterservice.dto.ExecutionDTOList;
+import de.unipassau.sep19.hafenkran.clusterservice.dto.MetricDTO;
+import de.unipassau.sep19.hafenkran.clusterservice.dto.ResultsMetadataDTO;
+import de.unipassau.sep19.hafenkran.clusterservice.dto.StartupLatencyMetricsDTO;
 import de.unipassau.sep19.hafenkran.clusterservice.dto.StdinDTO;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.LogSink;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.PodProjection;
 import de.unipassau.sep19.hafenkran.clusterservice.model.ExecutionDetails;
 import lombok.NonNull;
 
+import java.io.Closeable;
+import java.io.InputStream;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static de.unipassau.sep19.hafenkran.clusterservice.model.ExecutionDetails.Status;
 
@@ -25,6 +33,28 @@ public interface ExecutionService {
      */
     String retrieveLogsForExecutionId(@NonNull UUID executionId, int lines, Integer sinceSeconds, boolean withTimestamps);
 
+    /**
+     * Retrieves the logs of the execution without blocking the calling thread while the cluster responds.
+     *
+     * @param executionId    The id of the target execution.
+     * @param lines          The amount of lines to be returned.
+     * @param sinceSeconds   The time in seconds defining the range from where to start the extraction of logs.
+     * @param withTimestamps Show the timestamp for every line.
+     * @return The future string with the lines from the log.
+     * @see #retrieveLogsForExecutionId(UUID, int, Integer, boolean)
+     */
+    CompletableFuture<String> retrieveLogsForExecutionIdAsync(@NonNull UUID executionId, int lines,
+                                                              Integer sinceSeconds, boolean withTimestamps);
+
+    /**
+     * Follows the logs of the execution, but only if the given execution is currently running.
+     *
+     * @param executionId The id of the target execution.
+     * @param sink        The subscriber which receives every line logged from now on.
+     * @return The subscription, which has to be closed once the subscriber stops following the logs.
+     */
+    Closeable followLogsForExecutionId(@NonNull UUID executionId, @NonNull LogSink sink);
+
     /**
      * Converts an {@link ExecutionCreateDTO} to {@link ExecutionDTO}, saves its {@link ExecutionDetails} in the database
      * and starts the execution.
@@ -50,6 +80,16 @@ public interface ExecutionService {
      */
     ExecutionDTO terminateExecution(@NonNull UUID executionId);
 
+    /**
+     * Terminates the execution with the specified {@code executionId} without blocking the calling thread while
+     * its pod is deleted.
+     *
+     * @param executionId The execution to be terminated.
+     * @return The future {@link ExecutionDTO} with the new changed status and the termination time.
+     * @see #terminateExecution(UUID)
+     */
+    CompletableFuture<ExecutionDTO> terminateExecutionAsync(@NonNull UUID executionId);
+
     /**
      * Returns the {@link ExecutionDTO} from the specified {@code id}.
      *
@@ -93,12 +133,33 @@ public interface ExecutionService {
     ExecutionDTO deleteExecution(@NonNull UUID executionId);
 
     /**
-     * Returns a Base64-String with all results of the execution with the {@code executionId}.
+     * Returns a stream of the tar archive with all results of the execution with the {@code executionId}. The
+     * results are streamed from the cluster as they are read, so the caller has to close the stream.
+     *
+     * @param executionId The id of the execution, which results should be returned.
+     * @return A stream of the tar archive with all results from the execution.
+     */
+    InputStream getResults(@NonNull UUID executionId);
+
+    /**
+     * Returns a stream of a byte range of the results archive of the execution with the {@code executionId}. Only
+     * the requested range is transferred from the cluster, so the caller has to close the stream.
      *
      * @param executionId The id of the execution, which results should be returned.
-     * @return A Base64-String with all results from the execution.
+     * @param offset      The first byte of the archive to be returned.
+     * @param length      The amount of bytes to be returned.
+     * @return A stream of the range of the archive returned by {@link #getResults(UUID)}.
+     */
+    InputStream getResults(@NonNull UUID executionId, long offset, long length);
+
+    /**
+     * Returns the size and checksum of the results archive of the execution with the {@code executionId}, without
+     * transferring the results themselves.
+     *
+     * @param executionId The id of the execution, which results should be measured.
+     * @return The size and checksum of the archive returned by {@link #getResults(UUID)}.
      */
-    byte[] getResults(@NonNull UUID executionId);
+    ResultsMetadataDTO getResultsMetadata(@NonNull UUID executionId);
 
     /**
      * Sends an standardinput {@code stdinDTO} to a specific execution with the {@code executionId}.
@@ -109,13 +170,38 @@ public interface ExecutionService {
     void sendSTDIN(@NonNull UUID executionId, @NonNull StdinDTO stdinDTO);
 
     /**
-     * Sets the status of a {@link ExecutionDetails} to the status of its corresponding kubernetes pod.
+     * Sets the status of a {@link ExecutionDetails} to the status of its corresponding kubernetes pod. The pod of an
+     * execution which is aborted because the booked time was exceeded gets deleted.
      *
      * @param executionId The id of the execution, of which the status is going to be changed.
      * @param status      The status, which is going to be applied.
      */
     void changeExecutionStatus(@NonNull UUID executionId, @NonNull Status status);
 
+    /**
+     * Records when the pod of a {@link ExecutionDetails} was scheduled, started its container and became ready, and
+     * adds the latencies of these phases to the startup latency metrics.
+     *
+     * @param executionId The id of the execution, whose pod is running.
+     * @param pod         The running pod.
+     */
+    void recordPodStartup(@NonNull UUID executionId, @NonNull PodProjection pod);
+
+    /**
+     * Records the usage of the pods of {@link ExecutionDetails} if it exceeds their peak usage so far. The peak usage
+     * of finished executions is used to recommend the requests of later executions of the same experiment.
+     *
+     * @param metrics The current usage of the pods. Metrics without an execution are ignored.
+     */
+    void recordPeakUsage(@NonNull List<MetricDTO> metrics);
+
+    /**
+     * Retrieves the latency histograms of the phases of starting executions.
+     *
+     * @return The histograms per phase, in the order of the phases.
+     */
+    List<StartupLatencyMetricsDTO> retrieveStartupLatencyMetrics();
+
     /**
      * Identifies the execution by the pods name and namespace
      *
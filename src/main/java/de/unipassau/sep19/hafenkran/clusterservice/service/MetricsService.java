@@ -1,9 +1,12 @@
 package de.unipassau.sep19.hafenkran.clusterservice.service;
 
+import de.unipassau.sep19.hafenkran.clusterservice.dto.ApiCallMetricsDTO;
 import de.unipassau.sep19.hafenkran.clusterservice.dto.MetricDTO;
 import de.unipassau.sep19.hafenkran.clusterservice.dto.NodeMetricsDTO;
+import de.unipassau.sep19.hafenkran.clusterservice.dto.StartupLatencyMetricsDTO;
 
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * The MetricsServerService for retrieving all podMetrics.
@@ -23,4 +26,18 @@ public interface MetricsService {
      * @return Returns Arraylist of all node metrics of the cluster.
      */
     ArrayList<NodeMetricsDTO> retrieveNodeMetrics();
+
+    /**
+     * Retrieves the latency histograms and counters of the calls made to the Kubernetes api.
+     *
+     * @return Returns the metrics per verb and resource.
+     */
+    List<ApiCallMetricsDTO> retrieveApiCallMetrics();
+
+    /**
+     * Retrieves the latency histograms of the phases of starting executions.
+     *
+     * @return Returns the metrics per phase.
+     */
+    List<StartupLatencyMetricsDTO> retrieveStartupLatencyMetrics();
 }
\ No newline at end of file
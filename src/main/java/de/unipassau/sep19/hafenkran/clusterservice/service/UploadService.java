@@ -1,9 +1,12 @@
 package de.unipassau.sep19.hafenkran.clusterservice.service;
 
 import de.unipassau.sep19.hafenkran.clusterservice.dto.ExperimentDTO;
+import de.unipassau.sep19.hafenkran.clusterservice.dto.ImagePrePullDTO;
 import lombok.NonNull;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.UUID;
+
 /**
  * The UploadService for uploading and storing files to an experiment.
  */
@@ -17,4 +20,13 @@ public interface UploadService {
      * @return An ExperimentDTO with all new experimentDetails.
      */
     ExperimentDTO storeFile(@NonNull MultipartFile file, @NonNull String experimentName);
+
+    /**
+     * Returns the progress of pulling the image of an experiment onto the nodes of the cluster, which is started
+     * after the upload if enabled.
+     *
+     * @param experimentId The id of the experiment.
+     * @return The {@link ImagePrePullDTO} with the progress of the pre-pull.
+     */
+    ImagePrePullDTO retrieveImagePrePullForExperimentId(@NonNull UUID experimentId);
 }
@@ -3,11 +3,19 @@ package de.unipassau.sep19.hafenkran.clusterservice.service.impl;
 import de.unipassau.sep19.hafenkran.clusterservice.dto.ExecutionCreateDTO;
 import de.unipassau.sep19.hafenkran.clusterservice.dto.ExecutionDTO;
 import de.unipassau.sep19.hafenkran.clusterservice.dto.ExecutionDTOList;
+import de.unipassau.sep19.hafenkran.clusterservice.dto.MetricDTO;
 import de.unipassau.sep19.hafenkran.clusterservice.dto.ResultDTO;
+import de.unipassau.sep19.hafenkran.clusterservice.dto.ResultsMetadataDTO;
+import de.unipassau.sep19.hafenkran.clusterservice.dto.StartupLatencyMetricsDTO;
 import de.unipassau.sep19.hafenkran.clusterservice.dto.StdinDTO;
 import de.unipassau.sep19.hafenkran.clusterservice.dto.UserDTO;
 import de.unipassau.sep19.hafenkran.clusterservice.exception.ResourceNotFoundException;
 import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.KubernetesClient;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.LogSink;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.PodProjection;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.ResourceRequestRecommender;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.StartupLatencyMetrics;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.StartupLatencyMetrics.Phase;
 import de.unipassau.sep19.hafenkran.clusterservice.model.ExecutionDetails;
 import de.unipassau.sep19.hafenkran.clusterservice.model.ExecutionDetails.Status;
 import de.unipassau.sep19.hafenkran.clusterservice.model.ExperimentDetails;
@@ -20,6 +28,7 @@ import io.kubernetes.client.ApiException;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.joda.time.DateTime;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
@@ -27,14 +36,23 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.ZoneOffset;
-import java.util.Base64;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 @Slf4j
@@ -50,6 +68,8 @@ public class ExecutionServiceImpl implements ExecutionService {
 
     private final ReportingServiceClient rsClient;
 
+    private final StartupLatencyMetrics startupLatencyMetrics = new StartupLatencyMetrics();
+
     @Value("${kubernetes.deployment.defaults.ram}")
     private long ramDefault;
 
@@ -62,19 +82,35 @@ public class ExecutionServiceImpl implements ExecutionService {
     @Value("${kubernetes.mock.kubernetesClient}")
     private boolean mockKubernetesClient;
 
+    @Value("${kubernetes.deployment.active-deadline:true}")
+    private boolean activeDeadline;
+
+    @Value("${kubernetes.requests.recommend:true}")
+    private boolean requestRecommendation;
+
+    @Value("${kubernetes.requests.min-samples:3}")
+    private int recommendMinSamples;
+
+    @Value("${kubernetes.requests.percentile:95}")
+    private int recommendPercentile;
+
+    @Value("${kubernetes.requests.headroom:20}")
+    private int recommendHeadroom;
+
     /**
      * Automatically goes through all running pods in a fixed interval and terminates the execution
-     * if the booked time was exceeded.
+     * if the booked time was exceeded. Pods for which the cluster enforces the booked time as their active deadline
+     * are skipped, but pods created without one, e.g. before the active deadline was enabled, are still terminated.
      */
     @Scheduled(fixedDelayString = "#{${kubernetes.pod-cleanup-scheduler-delay}*1000}")
-    private void terminatePodsAfterBookedTimeExceeded() {
+    void terminatePodsAfterBookedTimeExceeded() {
         if (mockKubernetesClient) {
             return;
         }
 
         List<ExecutionDetails> runningExecutions = executionRepository.findAllByStatus(Status.RUNNING);
         runningExecutions.forEach(e -> {
-            if (LocalDateTime.now().toEpochSecond(ZoneOffset.UTC)
+            if (e.getActiveDeadlineSeconds() == null && LocalDateTime.now().toEpochSecond(ZoneOffset.UTC)
                     > e.getStartedAt().toEpochSecond(ZoneOffset.UTC) + e.getBookedTime()) {
                 terminateExecutionInternal(e.getId());
             }
@@ -105,6 +141,39 @@ public class ExecutionServiceImpl implements ExecutionService {
         return logs;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<String> retrieveLogsForExecutionIdAsync(@NonNull UUID id, int lines,
+                                                                     Integer sinceSeconds, boolean withTimestamps) {
+        ExecutionDetails executionDetails = retrieveExecutionDetailsById(id);
+
+        executionDetails.validatePermissions();
+
+        if (!executionDetails.getStatus().equals(ExecutionDetails.Status.RUNNING)) {
+            return CompletableFuture.completedFuture("Logs can only be retrieved for running executions!");
+        }
+
+        return unwrapClusterFailure(kubernetesClient.retrieveLogsAsync(executionDetails, lines, sinceSeconds,
+                withTimestamps));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Closeable followLogsForExecutionId(@NonNull UUID id, @NonNull LogSink sink) {
+        ExecutionDetails executionDetails = retrieveExecutionDetailsById(id);
+
+        try {
+            return kubernetesClient.followLogs(executionDetails, sink);
+        } catch (ApiException | IOException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "There was an error while " +
+                    "communicating with the cluster.", e);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -151,8 +220,28 @@ public class ExecutionServiceImpl implements ExecutionService {
             throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "There was an error while "
                     + "communicating with the cluster.");
         }
-        UserDTO user = SecurityContextUtil.getCurrentUserDTO();
 
+        return markTerminated(executionDetails, SecurityContextUtil.getCurrentUserDTO());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<ExecutionDTO> terminateExecutionAsync(@NonNull UUID executionId) {
+
+        ExecutionDetails executionDetails = getExecutionDetails(executionId);
+
+        executionDetails.validatePermissions();
+
+        // the security context is bound to the request thread, which is left while the pod is deleted
+        final UserDTO user = SecurityContextUtil.getCurrentUserDTO();
+
+        return unwrapClusterFailure(kubernetesClient.deletePodAsync(executionDetails)
+                .thenApply(deleted -> markTerminated(executionDetails, user)));
+    }
+
+    private ExecutionDTO markTerminated(@NonNull ExecutionDetails executionDetails, @NonNull UserDTO user) {
         if (user.isAdmin()
                 && !user.getId().equals(executionDetails.getOwnerId())
                 && !executionDetails.getStatus().equals(Status.CANCELED)
@@ -171,11 +260,34 @@ public class ExecutionServiceImpl implements ExecutionService {
 
         ExecutionDTO terminatedExecutionDTO = ExecutionDTO.fromExecutionDetails(executionDetails);
 
-        log.info(String.format("Execution with id %S terminated", executionId));
+        log.info(String.format("Execution with id %S terminated", executionDetails.getId()));
 
         return terminatedExecutionDTO;
     }
 
+    /**
+     * Maps a failed call to the cluster to a {@link ResponseStatusException}, like the blocking methods do. Other
+     * failures are passed on without the {@link CompletionException} they are wrapped in by dependent stages.
+     */
+    private static <T> CompletableFuture<T> unwrapClusterFailure(@NonNull CompletableFuture<T> future) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        future.whenComplete((value, e) -> {
+            if (e == null) {
+                result.complete(value);
+                return;
+            }
+
+            final Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof ApiException) {
+                result.completeExceptionally(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                        "There was an error while communicating with the cluster.", cause));
+            } else {
+                result.completeExceptionally(cause);
+            }
+        });
+        return result;
+    }
+
 
     private ExecutionDTO terminateExecutionInternal(@NonNull UUID executionId) {
         ExecutionDetails executionDetails = getExecutionDetails(executionId);
@@ -265,11 +377,41 @@ public class ExecutionServiceImpl implements ExecutionService {
      * {@inheritDoc}
      */
     @Override
-    public byte[] getResults(@NonNull UUID executionId) {
+    public InputStream getResults(@NonNull UUID executionId) {
+        return retrieveResults(retrieveExecutionDetailsById(executionId));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputStream getResults(@NonNull UUID executionId, long offset, long length) {
+        ExecutionDetails executionDetails = retrieveExecutionDetailsById(executionId);
+
+        try {
+            return kubernetesClient.retrieveResults(executionDetails, offset, length);
+        } catch (ApiException | IOException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Results couldn't be found.", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResultsMetadataDTO getResultsMetadata(@NonNull UUID executionId) {
         ExecutionDetails executionDetails = retrieveExecutionDetailsById(executionId);
 
         try {
-            return Base64.getEncoder().encode(kubernetesClient.retrieveResults(executionDetails).getBytes());
+            return kubernetesClient.retrieveResultsMetadata(executionDetails);
+        } catch (ApiException | IOException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Results couldn't be found.", e);
+        }
+    }
+
+    private InputStream retrieveResults(@NonNull ExecutionDetails executionDetails) {
+        try {
+            return kubernetesClient.retrieveResults(executionDetails);
         } catch (ApiException | IOException e) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Results couldn't be found.", e);
         }
@@ -301,7 +443,7 @@ public class ExecutionServiceImpl implements ExecutionService {
                 executionRepository.findById(executionId).orElseThrow(
                         () -> new ResourceNotFoundException(ExecutionDetails.class, "id", executionId.toString()));
 
-        if (status.equals(Status.FINISHED)) {
+        if (status.equals(Status.FINISHED) || status.equals(Status.ABORTED)) {
             executionDetails.setTerminatedAt(LocalDateTime.now());
         }
 
@@ -311,6 +453,16 @@ public class ExecutionServiceImpl implements ExecutionService {
                 || executionDetails.getStatus().equals(Status.FAILED)) {
             executionDetails.setStatus(status);
             executionRepository.save(executionDetails);
+
+            // the cluster stopped the pod after the booked time, but keeps it until it is deleted
+            if (status.equals(Status.ABORTED)) {
+                kubernetesClient.deletePodAsync(executionDetails).whenComplete((deleted, e) -> {
+                    if (e != null) {
+                        log.warn(String.format("Could not delete the pod of aborted execution %s",
+                                executionDetails.getId()), e);
+                    }
+                });
+            }
         }
     }
 
@@ -320,11 +472,24 @@ public class ExecutionServiceImpl implements ExecutionService {
         final String podName;
         boolean namespaceResourcesAlreadyAllocated;
 
+        if (requestRecommendation) {
+            recommendRequests(executionDetails);
+        }
+        if (activeDeadline) {
+            executionDetails.setActiveDeadlineSeconds(executionDetails.getBookedTime());
+        }
+
         try {
+            final long quotaCheckStart = System.nanoTime();
             namespaceResourcesAlreadyAllocated =
                     kubernetesClient.checkIfNamespaceResourcesAlreadyAllocated(executionDetails);
+            final long podCreationStart = System.nanoTime();
+            startupLatencyMetrics.record(Phase.QUOTA_CHECK,
+                    TimeUnit.NANOSECONDS.toMillis(podCreationStart - quotaCheckStart));
             if (!namespaceResourcesAlreadyAllocated) {
                 podName = kubernetesClient.createPod(executionDetails);
+                startupLatencyMetrics.record(Phase.POD_CREATION,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - podCreationStart));
             } else {
                 executionRepository.deleteById(executionDetails.getId());
                 throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
@@ -344,6 +509,110 @@ public class ExecutionServiceImpl implements ExecutionService {
         return executionDetails;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordPodStartup(@NonNull UUID executionId, @NonNull PodProjection pod) {
+        final ExecutionDetails executionDetails = getExecutionDetails(executionId);
+
+        executionDetails.setScheduledAt(toLocalDateTime(pod.getScheduledAt()));
+        executionDetails.setContainerStartedAt(toLocalDateTime(pod.getContainerStartedAt()));
+        executionDetails.setReadyAt(toLocalDateTime(pod.getContainersReadyAt()));
+        executionRepository.save(executionDetails);
+
+        // the times are taken from the pod, as the informer may see the phases late or not at all
+        recordPhase(Phase.SCHEDULING, pod.getCreatedAt(), pod.getScheduledAt());
+        recordPhase(Phase.IMAGE_PULL, pod.getScheduledAt(), pod.getContainerStartedAt());
+        recordPhase(Phase.CONTAINER_START, pod.getContainerStartedAt(), pod.getContainersReadyAt());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordPeakUsage(@NonNull List<MetricDTO> metrics) {
+        // the summed usage of all containers, cpu in milliCores and memory in Kibibyte
+        final Map<UUID, long[]> usages = new HashMap<>();
+        for (MetricDTO metric : metrics) {
+            if (metric.getExecutionId() == null || metric.getContainers() == null) {
+                continue;
+            }
+
+            final long[] usage = usages.computeIfAbsent(metric.getExecutionId(), id -> new long[2]);
+            for (MetricDTO.ContainerDTO container : metric.getContainers()) {
+                usage[0] += container.getUsage().getCpuMilliCores();
+                usage[1] += container.getUsage().getMemoryKibibytes();
+            }
+        }
+        if (usages.isEmpty()) {
+            return;
+        }
+
+        // a single query and a single batch update for all executions
+        final List<ExecutionDetails> exceededExecutions = new ArrayList<>();
+        for (ExecutionDetails executionDetails : executionRepository.findAllById(usages.keySet())) {
+            final long[] usage = usages.get(executionDetails.getId());
+            final boolean cpuExceeded = executionDetails.getPeakCpu() == null
+                    || usage[0] > executionDetails.getPeakCpu();
+            final boolean ramExceeded = executionDetails.getPeakRam() == null
+                    || usage[1] > executionDetails.getPeakRam();
+            if (cpuExceeded || ramExceeded) {
+                executionDetails.setPeakCpu(cpuExceeded ? usage[0] : executionDetails.getPeakCpu());
+                executionDetails.setPeakRam(ramExceeded ? usage[1] : executionDetails.getPeakRam());
+                exceededExecutions.add(executionDetails);
+            }
+        }
+        if (!exceededExecutions.isEmpty()) {
+            executionRepository.saveAll(exceededExecutions);
+        }
+    }
+
+    private void recommendRequests(@NonNull ExecutionDetails executionDetails) {
+        final List<ExecutionDetails> pastExecutions = executionRepository
+                .findTop20ByExperimentDetails_IdAndStatusAndPeakCpuNotNullOrderByStartedAtDesc(
+                        executionDetails.getExperimentDetails().getId(), Status.FINISHED);
+        if (pastExecutions.size() < Math.max(1, recommendMinSamples)) {
+            return;
+        }
+
+        final List<Long> cpuPeaks = new ArrayList<>();
+        final List<Long> ramPeaks = new ArrayList<>();
+        for (ExecutionDetails pastExecution : pastExecutions) {
+            cpuPeaks.add(pastExecution.getPeakCpu());
+            if (pastExecution.getPeakRam() != null) {
+                ramPeaks.add(pastExecution.getPeakRam());
+            }
+        }
+
+        executionDetails.setCpuRequest(ResourceRequestRecommender.recommend(cpuPeaks, executionDetails.getCpu(),
+                recommendPercentile, recommendHeadroom));
+        executionDetails.setRamRequest(ResourceRequestRecommender.recommend(ramPeaks, executionDetails.getRam(),
+                recommendPercentile, recommendHeadroom));
+        log.debug("Recommended requests of {}m cpu and {}Ki memory for execution {} from {} past executions",
+                executionDetails.getCpuRequest(), executionDetails.getRamRequest(), executionDetails.getId(),
+                pastExecutions.size());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<StartupLatencyMetricsDTO> retrieveStartupLatencyMetrics() {
+        return startupLatencyMetrics.snapshot();
+    }
+
+    private void recordPhase(@NonNull Phase phase, DateTime start, DateTime end) {
+        if (start != null && end != null) {
+            startupLatencyMetrics.record(phase, end.getMillis() - start.getMillis());
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(DateTime dateTime) {
+        return dateTime == null ? null
+                : LocalDateTime.ofInstant(Instant.ofEpochMilli(dateTime.getMillis()), ZoneId.systemDefault());
+    }
+
     private ExecutionDetails getExecutionDetails(@NonNull UUID executionId) {
         Optional<ExecutionDetails> executionDetailsById =
                 executionRepository.findById(executionId);
@@ -436,9 +705,11 @@ public class ExecutionServiceImpl implements ExecutionService {
 
     @Override
     public void updatePersistedResults(@NonNull ExecutionDetails execution) {
-        byte[] results = getResults(execution.getId());
-        ResultDTO resultDTO = new ResultDTO(execution.getId(), execution.getOwnerId(), Base64.getEncoder().encodeToString(results));
-        rsClient.sendResultsToResultsService(resultDTO);
+        try (InputStream results = retrieveResults(execution)) {
+            rsClient.sendResultsToResultsService(new ResultDTO(execution.getId(), execution.getOwnerId(), results));
+        } catch (IOException e) {
+            log.debug(String.format("Could not close the results stream of execution %s", execution.getId()), e);
+        }
     }
 
     /**
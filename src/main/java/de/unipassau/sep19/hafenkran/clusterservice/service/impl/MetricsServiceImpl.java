@@ -1,16 +1,23 @@
 package de.unipassau.sep19.hafenkran.clusterservice.service.impl;
 
+import de.unipassau.sep19.hafenkran.clusterservice.dto.ApiCallMetricsDTO;
 import de.unipassau.sep19.hafenkran.clusterservice.dto.MetricDTO;
 import de.unipassau.sep19.hafenkran.clusterservice.dto.NodeMetricsDTO;
+import de.unipassau.sep19.hafenkran.clusterservice.dto.StartupLatencyMetricsDTO;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.KubernetesClient;
+import de.unipassau.sep19.hafenkran.clusterservice.service.ExecutionService;
 import de.unipassau.sep19.hafenkran.clusterservice.service.MetricsService;
 import de.unipassau.sep19.hafenkran.clusterservice.metricsserver.MetricsServerClient;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.hibernate.mapping.Array;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Provides {@link MetricDTO} specific service.
@@ -22,6 +29,47 @@ public class MetricsServiceImpl implements MetricsService {
 
     private final MetricsServerClient metricsServerClient;
 
+    private final KubernetesClient kubernetesClient;
+
+    private final ExecutionService executionService;
+
+    @Value("${kubernetes.requests.recommend:true}")
+    private boolean requestRecommendation;
+
+    /**
+     * Samples the usage of the cluster nodes in a fixed interval, which the cluster capacity check takes into
+     * account, so checking the capacity does not need any round trip to the metrics server.
+     */
+    @Scheduled(fixedDelayString = "#{${kubernetes.metrics.node-sample-interval:30}*1000}")
+    public void sampleNodeUsage() {
+        try {
+            kubernetesClient.updateNodeUsage(metricsServerClient.retrieveNodeMetrics());
+        } catch (RuntimeException e) {
+            log.debug("Could not sample the usage of the cluster nodes.", e);
+        }
+    }
+
+    /**
+     * Samples the usage of the running executions in a fixed interval and records it as their peak usage if it is
+     * higher than before. The peaks are used to recommend the requests of later executions.
+     */
+    @Scheduled(fixedDelayString = "#{${kubernetes.requests.sample-interval:30}*1000}")
+    public void samplePeakUsage() {
+        if (!requestRecommendation) {
+            return;
+        }
+
+        final List<MetricDTO> metrics;
+        try {
+            metrics = metricsServerClient.retrieveMetrics();
+        } catch (RuntimeException e) {
+            log.debug("Could not sample the usage of the running executions.", e);
+            return;
+        }
+
+        executionService.recordPeakUsage(metrics);
+    }
+
     @Override
     public ArrayList<MetricDTO> retrieveMetrics() {
         return metricsServerClient.retrieveMetrics();
@@ -31,4 +79,14 @@ public class MetricsServiceImpl implements MetricsService {
     public ArrayList<NodeMetricsDTO> retrieveNodeMetrics() {
         return metricsServerClient.retrieveNodeMetrics();
     }
+
+    @Override
+    public List<ApiCallMetricsDTO> retrieveApiCallMetrics() {
+        return kubernetesClient.retrieveApiCallMetrics();
+    }
+
+    @Override
+    public List<StartupLatencyMetricsDTO> retrieveStartupLatencyMetrics() {
+        return executionService.retrieveStartupLatencyMetrics();
+    }
 }
\ No newline at end of file
@@ -12,7 +12,7 @@ import java.util.UUID;
 public interface ReportingServiceClient {
 
     /**
-     * Pushes the given results to the ReportingService.
+     * Pushes the given results to the ReportingService. The results stream is encoded while it is sent.
      *
      * @param resultDTO the given results.
      */
@@ -20,6 +20,19 @@ public interface ServiceClient {
      */
     <T> T post(@NonNull String path, @NonNull Object body, @NonNull Class<T> responseType, @Nullable HttpHeaders headers);
 
+    /**
+     * Sends a POST request like {@link #post(String, Object, Class, HttpHeaders)}, but writes the body directly to the
+     * connection instead of buffering it first. Used for bodies which are backed by streams of unknown size.
+     *
+     * @param path         the target path.
+     * @param responseType the target response type.
+     * @param headers      the optional headers for the request.
+     * @param <T>          the response type.
+     * @return the response from the server converted to the given response type class.
+     */
+    <T> T postStreaming(@NonNull String path, @NonNull Object body, @NonNull Class<T> responseType,
+                        @Nullable HttpHeaders headers);
+
     /**
      * Sends a GET request with the given body and headers to the target path and converts it to the responseType.
      *
@@ -32,7 +32,7 @@ public class ReportingServiceClientImpl implements ReportingServiceClient {
      * {@inheritDoc}
      */
     public void sendResultsToResultsService(@NonNull ResultDTO resultDTO) {
-        serviceClient.post(basePath + "/results?secret=" + serviceSecret, resultDTO, String.class, null);
+        serviceClient.postStreaming(basePath + "/results?secret=" + serviceSecret, resultDTO, String.class, null);
     }
 
     /**
@@ -10,6 +10,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.configurationprocessor.json.JSONException;
 import org.springframework.boot.configurationprocessor.json.JSONObject;
 import org.springframework.http.*;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
@@ -57,11 +58,20 @@ public class ServiceClientImpl implements ServiceClient {
      * {@inheritDoc}
      */
     public <T> T post(@NonNull String path, @NonNull Object body, @NonNull Class<T> responseType, @Nullable HttpHeaders headers) {
-        return post(path, body, responseType, headers, false);
+        return post(new RestTemplate(), path, body, responseType, headers, false);
     }
 
-    private <T> T post(@NonNull String path, @NonNull Object body, @NonNull Class<T> responseType, @Nullable HttpHeaders headers, boolean withoutAuthHeaders) {
-        RestTemplate rt = new RestTemplate();
+    /**
+     * {@inheritDoc}
+     */
+    public <T> T postStreaming(@NonNull String path, @NonNull Object body, @NonNull Class<T> responseType,
+                               @Nullable HttpHeaders headers) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setBufferRequestBody(false);
+        return post(new RestTemplate(requestFactory), path, body, responseType, headers, false);
+    }
+
+    private <T> T post(@NonNull RestTemplate rt, @NonNull String path, @NonNull Object body, @NonNull Class<T> responseType, @Nullable HttpHeaders headers, boolean withoutAuthHeaders) {
 
         headers = headers != null ? headers : new HttpHeaders();
         headers.add("Content-Type", "application/json");
@@ -83,8 +93,8 @@ public class ServiceClientImpl implements ServiceClient {
     }
 
     private String getAuthToken() {
-        String loginResponse = post(usPath + "/authenticate", new AuthenticationDTO(serviceUserName, serviceUserPw),
-                String.class, null, true);
+        String loginResponse = post(new RestTemplate(), usPath + "/authenticate",
+                new AuthenticationDTO(serviceUserName, serviceUserPw), String.class, null, true);
 
         final String jwt;
         try {
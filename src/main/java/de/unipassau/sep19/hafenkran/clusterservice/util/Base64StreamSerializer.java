@@ -0,0 +1,20 @@
+package de.unipassau.sep19.hafenkran.clusterservice.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Serializes an {@link InputStream} as Base64-String. The stream is encoded chunk by chunk while it is written to the
+ * generator, so its content is never held in memory as a whole.
+ */
+public class Base64StreamSerializer extends JsonSerializer<InputStream> {
+
+    @Override
+    public void serialize(InputStream value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        gen.writeBinary(value, -1);
+    }
+}
@@ -0,0 +1,267 @@
+package de.unipassau.sep19.hafenkran.clusterservice.util;
+
+import io.kubernetes.client.custom.Quantity;
+import lombok.NonNull;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * A utility for converting Kubernetes quantities like {@code 250m}, {@code 1.5Gi} or {@code 1e3} to primitive values
+ * in the units used throughout the service: milliCores for cpu and Kibibyte for memory.
+ * <p>
+ * String quantities are parsed char by char without regular expressions or intermediate objects, as they are parsed
+ * for every metric and every admission check. Results are rounded up, like Kubernetes does, and saturate at
+ * {@link Long#MAX_VALUE} instead of overflowing.
+ */
+public final class QuantityParser {
+
+    private QuantityParser() {
+    }
+
+    /**
+     * Converts a cpu quantity to milliCores.
+     *
+     * @param quantity The quantity, e.g. {@code 2}, {@code 250m} or {@code 123456n}.
+     * @return The quantity in milliCores.
+     * @throws NumberFormatException if the quantity is malformed.
+     */
+    public static long parseMilliCores(@NonNull CharSequence quantity) {
+        return parse(quantity, 3, 0);
+    }
+
+    /**
+     * Converts a cpu quantity to nanoCores, the finest unit the metrics server reports.
+     *
+     * @param quantity The quantity, e.g. {@code 2}, {@code 250m} or {@code 123456n}.
+     * @return The quantity in nanoCores.
+     * @throws NumberFormatException if the quantity is malformed.
+     */
+    public static long parseNanoCores(@NonNull CharSequence quantity) {
+        return parse(quantity, 9, 0);
+    }
+
+    /**
+     * Converts a memory quantity to Kibibyte.
+     *
+     * @param quantity The quantity, e.g. {@code 1048576}, {@code 16496Ki}, {@code 1.5Gi} or {@code 500M}.
+     * @return The quantity in Kibibyte.
+     * @throws NumberFormatException if the quantity is malformed.
+     */
+    public static long parseKibibytes(@NonNull CharSequence quantity) {
+        return parse(quantity, 0, -10);
+    }
+
+    /**
+     * Converts a parsed cpu {@link Quantity} to milliCores.
+     *
+     * @param quantity The quantity.
+     * @return The quantity in milliCores.
+     */
+    public static long toMilliCores(@NonNull Quantity quantity) {
+        return toLong(quantity.getNumber().movePointRight(3));
+    }
+
+    /**
+     * Converts a parsed memory {@link Quantity} to Kibibyte.
+     *
+     * @param quantity The quantity.
+     * @return The quantity in Kibibyte.
+     */
+    public static long toKibibytes(@NonNull Quantity quantity) {
+        return toLong(quantity.getNumber().divide(BigDecimal.valueOf(1024), 0, RoundingMode.CEILING));
+    }
+
+    /**
+     * Parses a quantity and scales it by {@code 10^decimalShift * 2^binaryShift}.
+     *
+     * @param quantity     The quantity consisting of a signed decimal number and an optional suffix, which is either
+     *                     a binary suffix (Ki, Mi, Gi, Ti, Pi, Ei), a decimal suffix (n, u, m, k, M, G, T, P, E) or a
+     *                     decimal exponent (e.g. e3, E-2).
+     * @param decimalShift The power of ten the parsed value is multiplied with.
+     * @param binaryShift  The power of two the parsed value is multiplied with.
+     * @return The scaled value, rounded up.
+     * @throws NumberFormatException if the quantity is malformed.
+     */
+    public static long parse(@NonNull CharSequence quantity, int decimalShift, int binaryShift) {
+        final int length = quantity.length();
+        int i = 0;
+
+        boolean negative = false;
+        if (i < length && (quantity.charAt(i) == '+' || quantity.charAt(i) == '-')) {
+            negative = quantity.charAt(i) == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int exp10 = decimalShift;
+        int exp2 = binaryShift;
+        boolean hasDigits = false;
+        boolean truncated = false;
+
+        // integer part, digits which do not fit into the mantissa are kept as exponent
+        for (; i < length && isDigit(quantity.charAt(i)); i++) {
+            int digit = quantity.charAt(i) - '0';
+            if (mantissa <= (Long.MAX_VALUE - digit) / 10) {
+                mantissa = mantissa * 10 + digit;
+            } else {
+                exp10++;
+                truncated |= digit != 0;
+            }
+            hasDigits = true;
+        }
+
+        // fractional part, digits which do not fit into the mantissa are dropped
+        if (i < length && quantity.charAt(i) == '.') {
+            for (i++; i < length && isDigit(quantity.charAt(i)); i++) {
+                int digit = quantity.charAt(i) - '0';
+                if (mantissa <= (Long.MAX_VALUE - digit) / 10) {
+                    mantissa = mantissa * 10 + digit;
+                    exp10--;
+                } else {
+                    truncated |= digit != 0;
+                }
+                hasDigits = true;
+            }
+        }
+
+        if (!hasDigits) {
+            throw malformed(quantity);
+        }
+
+        if (i < length) {
+            final char suffix = quantity.charAt(i);
+            final int remaining = length - i;
+
+            if (remaining == 2 && quantity.charAt(i + 1) == 'i') {
+                exp2 += binarySuffixExponent(suffix, quantity);
+            } else if ((suffix == 'e' || suffix == 'E') && remaining > 1) {
+                exp10 += parseExponent(quantity, i + 1);
+            } else if (remaining == 1) {
+                exp10 += decimalSuffixExponent(suffix, quantity);
+            } else {
+                throw malformed(quantity);
+            }
+        }
+
+        final long value = scale(mantissa, exp10, exp2, truncated);
+        return negative ? -value : value;
+    }
+
+    private static long scale(long value, int exp10, int exp2, boolean truncated) {
+        boolean remainder = truncated;
+
+        // multiply first to keep the precision of fractional values
+        for (; exp10 > 0 && value != 0; exp10--) {
+            if (value > Long.MAX_VALUE / 10) {
+                return Long.MAX_VALUE;
+            }
+            value *= 10;
+        }
+        if (exp2 > 0 && value != 0) {
+            if (exp2 >= 63 || value > (Long.MAX_VALUE >> exp2)) {
+                return Long.MAX_VALUE;
+            }
+            value <<= exp2;
+        }
+
+        for (; exp10 < 0 && value != 0; exp10++) {
+            remainder |= value % 10 != 0;
+            value /= 10;
+        }
+        if (exp2 < 0 && value != 0) {
+            if (exp2 <= -63) {
+                remainder = true;
+                value = 0;
+            } else {
+                remainder |= (value & ((1L << -exp2) - 1)) != 0;
+                value >>= -exp2;
+            }
+        }
+
+        return remainder && value < Long.MAX_VALUE ? value + 1 : value;
+    }
+
+    private static int parseExponent(CharSequence quantity, int start) {
+        final int length = quantity.length();
+        int i = start;
+
+        boolean negative = false;
+        if (quantity.charAt(i) == '+' || quantity.charAt(i) == '-') {
+            negative = quantity.charAt(i) == '-';
+            i++;
+        }
+        if (i == length) {
+            throw malformed(quantity);
+        }
+
+        int exponent = 0;
+        for (; i < length; i++) {
+            if (!isDigit(quantity.charAt(i)) || exponent > 1000) {
+                throw malformed(quantity);
+            }
+            exponent = exponent * 10 + (quantity.charAt(i) - '0');
+        }
+        return negative ? -exponent : exponent;
+    }
+
+    private static int binarySuffixExponent(char suffix, CharSequence quantity) {
+        switch (suffix) {
+        case 'K':
+            return 10;
+        case 'M':
+            return 20;
+        case 'G':
+            return 30;
+        case 'T':
+            return 40;
+        case 'P':
+            return 50;
+        case 'E':
+            return 60;
+        default:
+            throw malformed(quantity);
+        }
+    }
+
+    private static int decimalSuffixExponent(char suffix, CharSequence quantity) {
+        switch (suffix) {
+        case 'n':
+            return -9;
+        case 'u':
+            return -6;
+        case 'm':
+            return -3;
+        case 'k':
+            return 3;
+        case 'M':
+            return 6;
+        case 'G':
+            return 9;
+        case 'T':
+            return 12;
+        case 'P':
+            return 15;
+        case 'E':
+            return 18;
+        default:
+            throw malformed(quantity);
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static long toLong(BigDecimal value) {
+        BigDecimal rounded = value.setScale(0, RoundingMode.CEILING);
+        if (rounded.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) > 0) {
+            return Long.MAX_VALUE;
+        }
+        return rounded.longValue();
+    }
+
+    private static NumberFormatException malformed(CharSequence quantity) {
+        return new NumberFormatException(String.format("Invalid quantity %s", quantity));
+    }
+}
@@ -0,0 +1,46 @@
+package de.unipassau.sep19.hafenkran.clusterservice.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class MetricDTOTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void testSerialize_metricsServerUsage_keepsUnitlessNanoCoresAndKibibytes() throws IOException {
+
+        // Prepare
+        final String metricsServerJson = "{\"metadata\":{\"name\":\"pod\",\"namespace\":\"namespace\"},"
+                + "\"containers\":[{\"name\":\"container\",\"usage\":{\"cpu\":\"123456n\",\"memory\":\"16496Ki\"}}]}";
+        final MetricDTO metric = objectMapper.readValue(metricsServerJson, MetricDTO.class);
+
+        // Execute
+        final JsonNode usage = objectMapper.readTree(objectMapper.writeValueAsString(metric))
+                .get("containers").get(0).get("usage");
+
+        // Assert
+        assertEquals(2, usage.size());
+        assertEquals("123456", usage.get("cpu").textValue());
+        assertEquals("16496", usage.get("memory").textValue());
+    }
+
+    @Test
+    public void testUsage_otherUnits_convertsToNanoCoresAndKibibytes() {
+
+        // Execute
+        final MetricDTO.UsageDTO usage = new MetricDTO.UsageDTO("1Mi", "250m");
+
+        // Assert
+        assertEquals("250000000", usage.getCpu());
+        assertEquals("1024", usage.getMemory());
+        assertEquals(250, usage.getCpuMilliCores());
+        assertEquals(1024, usage.getMemoryKibibytes());
+    }
+
+}
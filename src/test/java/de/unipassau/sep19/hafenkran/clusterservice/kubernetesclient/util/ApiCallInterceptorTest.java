@@ -0,0 +1,174 @@
+package de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util;
+
+import com.squareup.okhttp.Connection;
+import com.squareup.okhttp.HttpUrl;
+import com.squareup.okhttp.Interceptor;
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.Protocol;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.RequestBody;
+import com.squareup.okhttp.Response;
+import com.squareup.okhttp.ResponseBody;
+import de.unipassau.sep19.hafenkran.clusterservice.dto.ApiCallMetricsDTO;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ApiCallInterceptorTest {
+
+    private static final String POD_URL = "https://cluster/api/v1/namespaces/ns/pods/pod";
+
+    private final ApiCallMetrics metrics = new ApiCallMetrics();
+
+    private final List<Long> sleeps = new ArrayList<>();
+
+    private final ApiCallInterceptor subject = new ApiCallInterceptor(1000, 1000, 2, metrics, sleeps::add);
+
+    @Test
+    public void testIntercept_throttledPost_retriedWithBackoff() throws IOException {
+
+        // Prepare
+        final Request request = new Request.Builder().url(POD_URL)
+                .post(RequestBody.create(MediaType.parse("application/json"), "{}")).build();
+        final RecordingChain chain = new RecordingChain(request, 429, 201);
+
+        // Execute
+        final Response response = subject.intercept(chain);
+
+        // Assert
+        assertEquals(201, response.code());
+        assertEquals(2, chain.calls);
+        assertEquals(1, sleeps.size());
+        assertTrue(sleeps.get(0) >= ApiCallInterceptor.BASE_BACKOFF_MILLIS);
+        assertTrue(sleeps.get(0) <= ApiCallInterceptor.MAX_BACKOFF_MILLIS);
+    }
+
+    @Test
+    public void testIntercept_unavailablePost_notRetried() throws IOException {
+
+        // Prepare
+        final Request request = new Request.Builder().url(POD_URL)
+                .post(RequestBody.create(MediaType.parse("application/json"), "{}")).build();
+        final RecordingChain chain = new RecordingChain(request, 503, 201);
+
+        // Execute
+        final Response response = subject.intercept(chain);
+
+        // Assert
+        assertEquals(503, response.code());
+        assertEquals(1, chain.calls);
+    }
+
+    @Test
+    public void testIntercept_unavailableGet_retriedUpToMaxRetries() throws IOException {
+
+        // Prepare
+        final Request request = new Request.Builder().url(POD_URL).get().build();
+        final RecordingChain chain = new RecordingChain(request, 503, 503, 503, 200);
+
+        // Execute
+        final Response response = subject.intercept(chain);
+
+        // Assert
+        assertEquals(503, response.code());
+        assertEquals(3, chain.calls);
+        final ApiCallMetricsDTO recorded = metrics.snapshot().get(0);
+        assertEquals("GET", recorded.getVerb());
+        assertEquals("pods", recorded.getResource());
+        assertEquals(1, recorded.getCount());
+        assertEquals(1, recorded.getErrors());
+        assertEquals(2, recorded.getRetries());
+    }
+
+    @Test
+    public void testIntercept_connectionErrorOnGet_retried() throws IOException {
+
+        // Prepare
+        final Request request = new Request.Builder().url(POD_URL).get().build();
+        final RecordingChain chain = new RecordingChain(request, -1, 200);
+
+        // Execute
+        final Response response = subject.intercept(chain);
+
+        // Assert
+        assertEquals(200, response.code());
+        assertEquals(2, chain.calls);
+    }
+
+    @Test
+    public void testIntercept_connectionErrorOnDelete_thrown() {
+
+        // Prepare
+        final Request request = new Request.Builder().url(POD_URL).delete().build();
+        final RecordingChain chain = new RecordingChain(request, -1, 200);
+
+        // Execute
+        assertThrows(IOException.class, () -> subject.intercept(chain));
+
+        // Assert
+        assertEquals(1, chain.calls);
+        assertEquals(1, metrics.snapshot().get(0).getErrors());
+    }
+
+    @Test
+    public void testResourceOf_namespacedSubresourceAndGroupResource_resourceNames() {
+
+        // Execute
+        final String log = ApiCallInterceptor.resourceOf(HttpUrl.parse(POD_URL + "/log"));
+        final String namespace = ApiCallInterceptor.resourceOf(HttpUrl.parse("https://cluster/api/v1/namespaces/ns"));
+        final String nodeMetrics = ApiCallInterceptor.resourceOf(
+                HttpUrl.parse("https://cluster/apis/metrics.k8s.io/v1beta1/nodes"));
+
+        // Assert
+        assertEquals("pods/log", log);
+        assertEquals("namespaces", namespace);
+        assertEquals("nodes.metrics.k8s.io", nodeMetrics);
+    }
+
+    /**
+     * Answers the calls with the given status codes in order, where -1 fails the call with an {@link IOException}.
+     */
+    private static class RecordingChain implements Interceptor.Chain {
+
+        private final Request request;
+
+        private final Queue<Integer> codes;
+
+        private int calls;
+
+        private RecordingChain(Request request, Integer... codes) {
+            this.request = request;
+            this.codes = new ArrayDeque<>(Arrays.asList(codes));
+        }
+
+        @Override
+        public Request request() {
+            return request;
+        }
+
+        @Override
+        public Response proceed(Request request) throws IOException {
+            calls++;
+            final int code = codes.remove();
+            if (code < 0) {
+                throw new IOException("connection reset");
+            }
+            return new Response.Builder().request(request).protocol(Protocol.HTTP_1_1).code(code)
+                    .body(ResponseBody.create(MediaType.parse("application/json"), "{}")).build();
+        }
+
+        @Override
+        public Connection connection() {
+            return null;
+        }
+    }
+}
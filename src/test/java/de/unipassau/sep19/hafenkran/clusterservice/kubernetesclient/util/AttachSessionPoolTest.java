@@ -0,0 +1,113 @@
+package de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util;
+
+import io.kubernetes.client.ApiException;
+import io.kubernetes.client.Attach;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AttachSessionPoolTest {
+
+    @Rule
+    public ExpectedException expectedEx = ExpectedException.none();
+
+    @Mock
+    private Attach attach;
+
+    @Mock
+    private Attach.AttachResult attachResult;
+
+    private ByteArrayOutputStream stdin;
+
+    private AttachSessionPool subject;
+
+    @Before
+    public void setUp() throws IOException, ApiException {
+        this.stdin = new ByteArrayOutputStream();
+        this.subject = new AttachSessionPool(attach);
+        when(attach.attach("namespace", "pod", null, true, false)).thenReturn(attachResult);
+        when(attachResult.getStandardInputStream()).thenReturn(stdin);
+    }
+
+    @Test
+    public void testWrite_multipleWrites_reusesSession() throws IOException, ApiException {
+
+        // Execute
+        subject.write("namespace", "pod", "first\n".getBytes());
+        subject.write("namespace", "pod", "second\n".getBytes());
+
+        // Assert
+        assertEquals("first\nsecond\n", stdin.toString());
+        verify(attach, times(1)).attach("namespace", "pod", null, true, false);
+        verify(attachResult, never()).close();
+    }
+
+    @Test(timeout = 5000)
+    public void testWrite_moreThanPipeBuffer_doesNotAttachOutput() throws IOException, ApiException {
+
+        // Prepare
+        final StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 256; i++) {
+            expected.append("line ").append(i).append('\n');
+        }
+
+        // Execute
+        for (String line : expected.toString().split("(?<=\n)")) {
+            subject.write("namespace", "pod", line.getBytes());
+        }
+
+        // Assert
+        assertTrue(expected.length() > 1024);
+        assertEquals(expected.toString(), stdin.toString());
+        verify(attach, times(1)).attach("namespace", "pod", null, true, false);
+        verify(attachResult, never()).getStandardOutputStream();
+        verify(attachResult, never()).getErrorStream();
+    }
+
+    @Test
+    public void testEvictIdle_idleSession_closesSessionAndReopensOnWrite() throws IOException, ApiException {
+
+        // Prepare
+        subject.write("namespace", "pod", "first\n".getBytes());
+
+        // Execute
+        subject.evictIdle(-1);
+        subject.write("namespace", "pod", "second\n".getBytes());
+
+        // Assert
+        verify(attachResult, times(1)).close();
+        verify(attach, times(2)).attach("namespace", "pod", null, true, false);
+    }
+
+    @Test
+    public void testWrite_failingStream_closesSessionAndThrowsException() throws IOException, ApiException {
+
+        // Prepare
+        final OutputStream failingStdin = mock(OutputStream.class);
+        doThrow(new IOException()).when(failingStdin).write(any(byte[].class));
+        when(attachResult.getStandardInputStream()).thenReturn(failingStdin);
+        expectedEx.expect(IOException.class);
+
+        // Execute
+        try {
+            subject.write("namespace", "pod", "first\n".getBytes());
+        } finally {
+            verify(attachResult, times(1)).close();
+        }
+    }
+
+}
@@ -0,0 +1,77 @@
+package de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util;
+
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.ChunkedListIterator.Chunk;
+import io.kubernetes.client.ApiException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ChunkedListIteratorTest {
+
+    @Test
+    public void testNext_severalChunks_followsContinueTokens() throws ApiException {
+
+        // Prepare
+        final List<String> requestedTokens = new ArrayList<>();
+        final ChunkedListIterator<String> iterator = new ChunkedListIterator<>((continueToken, limit) -> {
+            requestedTokens.add(continueToken);
+            assertEquals(2, limit);
+            if (continueToken == null) {
+                return new Chunk<>(Arrays.asList("a", "b"), "token1", "42");
+            }
+            return new Chunk<>(Collections.singletonList("c"), "", "43");
+        }, 2);
+
+        // Execute
+        final List<String> items = new ArrayList<>();
+        while (iterator.hasNext()) {
+            items.add(iterator.next());
+        }
+
+        // Assert
+        assertEquals(Arrays.asList("a", "b", "c"), items);
+        assertEquals(Arrays.asList(null, "token1"), requestedTokens);
+        assertEquals("42", iterator.getResourceVersion());
+    }
+
+    @Test
+    public void testHasNext_emptyChunkWithContinueToken_listsNextChunk() throws ApiException {
+
+        // Prepare
+        final ChunkedListIterator<String> iterator = new ChunkedListIterator<>((continueToken, limit) ->
+                continueToken == null
+                        ? new Chunk<>(Collections.emptyList(), "token1", "42")
+                        : new Chunk<>(Collections.singletonList("a"), null, "42"), 10);
+
+        // Execute
+        final String item = iterator.next();
+
+        // Assert
+        assertEquals("a", item);
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testNext_emptyList_throwsNoSuchElementException() throws ApiException {
+
+        // Prepare
+        final ChunkedListIterator<String> iterator = new ChunkedListIterator<>((continueToken, limit) ->
+                new Chunk<>(Collections.emptyList(), null, "42"), 10);
+
+        // Execute & Assert
+        assertNull(iterator.getResourceVersion());
+        assertFalse(iterator.hasNext());
+        assertEquals("42", iterator.getResourceVersion());
+        assertThrows(NoSuchElementException.class, iterator::next);
+    }
+
+}
@@ -0,0 +1,120 @@
+package de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util;
+
+import io.kubernetes.client.custom.Quantity;
+import io.kubernetes.client.models.V1Node;
+import io.kubernetes.client.models.V1NodeBuilder;
+import io.kubernetes.client.models.V1PodBuilder;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ClusterCapacityModelTest {
+
+    private ClusterCapacityModel subject;
+
+    @Before
+    public void setUp() {
+        this.subject = new ClusterCapacityModel();
+        subject.nodeEventHandler().onAdd(node("node1", "4", "8Gi", false));
+    }
+
+    @Test
+    public void testHasCapacityFor_emptyNode_returnsTrue() {
+
+        // Execute & Assert
+        assertTrue(subject.hasCapacityFor(4000, 8 * 1024 * 1024));
+        assertFalse(subject.hasCapacityFor(4001, 1));
+        assertFalse(subject.hasCapacityFor(1, 8 * 1024 * 1024 + 1));
+    }
+
+    @Test
+    public void testHasCapacityFor_scheduledPods_subtractsRequestsUntilTerminated() {
+
+        // Prepare
+        final PodProjection pod = pod("pod1", "node1", "3", "1Gi", "Running");
+        subject.podEventHandler().onAdd(pod);
+
+        // Execute & Assert
+        assertFalse(subject.hasCapacityFor(2000, 1024));
+        assertTrue(subject.hasCapacityFor(1000, 1024));
+
+        subject.podEventHandler().onUpdate(pod, pod("pod1", "node1", "3", "1Gi", "Succeeded"));
+        assertTrue(subject.hasCapacityFor(4000, 1024));
+    }
+
+    @Test
+    public void testHasCapacityFor_usageAboveRequests_subtractsUsage() {
+
+        // Prepare
+        subject.podEventHandler().onAdd(pod("pod1", "node1", "1", "1Gi", "Running"));
+
+        // Execute
+        subject.updateUsage("node1", 3500, 1024);
+
+        // Assert
+        assertFalse(subject.hasCapacityFor(1000, 1024));
+        assertTrue(subject.hasCapacityFor(500, 1024));
+    }
+
+    @Test
+    public void testHasCapacityFor_unschedulableNode_returnsFalse() {
+
+        // Execute
+        subject.nodeEventHandler().onUpdate(null, node("node1", "4", "8Gi", true));
+
+        // Assert
+        assertFalse(subject.hasCapacityFor(1, 1));
+    }
+
+    @Test
+    public void testAssume_pendingPod_keepsRequestsUntilScheduled() {
+
+        // Prepare
+        subject.assume("namespace", "pod1", "node1", 3000, 1024);
+        final PodProjection pendingPod = pod("pod1", null, "3", "1Ki", "Pending");
+
+        // Execute & Assert
+        subject.podEventHandler().onAdd(pendingPod);
+        assertFalse(subject.hasCapacityFor(2000, 1024));
+
+        subject.podEventHandler().onUpdate(pendingPod, pod("pod1", "node1", "3", "1Ki", "Running"));
+        assertFalse(subject.hasCapacityFor(2000, 1024));
+        assertTrue(subject.hasCapacityFor(1000, 1024));
+
+        subject.forget("namespace", "pod1");
+        assertTrue(subject.hasCapacityFor(4000, 1024));
+    }
+
+    private static V1Node node(String name, String cpu, String memory, boolean unschedulable) {
+        final Map<String, Quantity> allocatable = new HashMap<>();
+        allocatable.put("cpu", Quantity.fromString(cpu));
+        allocatable.put("memory", Quantity.fromString(memory));
+
+        return new V1NodeBuilder()
+                .withNewMetadata().withName(name).endMetadata()
+                .withNewSpec().withUnschedulable(unschedulable).endSpec()
+                .withNewStatus().withAllocatable(allocatable).endStatus()
+                .build();
+    }
+
+    private static PodProjection pod(String name, String nodeName, String cpu, String memory, String phase) {
+        final Map<String, Quantity> limits = new HashMap<>();
+        limits.put("cpu", Quantity.fromString(cpu));
+        limits.put("memory", Quantity.fromString(memory));
+
+        return PodProjection.of(new V1PodBuilder()
+                .withNewMetadata().withName(name).withNamespace("namespace").endMetadata()
+                .withNewSpec()
+                .withNodeName(nodeName)
+                .addNewContainer().withName(name).withNewResources().withLimits(limits).endResources().endContainer()
+                .endSpec()
+                .withNewStatus().withPhase(phase).endStatus()
+                .build());
+    }
+
+}
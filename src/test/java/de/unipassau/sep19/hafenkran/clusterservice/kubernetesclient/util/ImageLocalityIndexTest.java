@@ -0,0 +1,85 @@
+package de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util;
+
+import io.kubernetes.client.models.V1Affinity;
+import io.kubernetes.client.models.V1Node;
+import io.kubernetes.client.models.V1NodeBuilder;
+import io.kubernetes.client.models.V1NodeSelectorRequirement;
+import io.kubernetes.client.models.V1PreferredSchedulingTerm;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class ImageLocalityIndexTest {
+
+    private ImageLocalityIndex subject;
+
+    @Before
+    public void setUp() {
+        this.subject = new ImageLocalityIndex("hafenkran/experiments");
+    }
+
+    @Test
+    public void testNodesWithImage_reportedImages_matchesWithAndWithoutRegistry() {
+
+        // Prepare
+        subject.nodeEventHandler().onAdd(node("node2", "docker.io/hafenkran/experiments:abc"));
+        subject.nodeEventHandler().onAdd(node("node1", "hafenkran/experiments:abc"));
+        subject.nodeEventHandler().onAdd(node("node3", "hafenkran/experiments:def", "nginx:latest"));
+
+        // Execute & Assert
+        assertEquals(Arrays.asList("node1", "node2"), subject.nodesWithImage("hafenkran/experiments:abc"));
+        assertEquals(Collections.singletonList("node3"), subject.nodesWithImage("hafenkran/experiments:def"));
+        assertEquals(Collections.emptyList(), subject.nodesWithImage("nginx:latest"));
+    }
+
+    @Test
+    public void testNodesWithImage_removedImageAndNode_dropsNodes() {
+
+        // Prepare
+        final V1Node node = node("node1", "hafenkran/experiments:abc");
+        subject.nodeEventHandler().onAdd(node);
+        subject.nodeEventHandler().onAdd(node("node2", "hafenkran/experiments:abc"));
+
+        // Execute
+        subject.nodeEventHandler().onUpdate(node, node("node1"));
+        subject.nodeEventHandler().onDelete(node("node2"), false);
+
+        // Assert
+        assertEquals(Collections.emptyList(), subject.nodesWithImage("hafenkran/experiments:abc"));
+    }
+
+    @Test
+    public void testPreferredAffinity_nodesWithImage_prefersThem() {
+
+        // Prepare
+        subject.nodeEventHandler().onAdd(node("node1", "hafenkran/experiments:abc"));
+
+        // Execute
+        final V1Affinity affinity = subject.preferredAffinity("hafenkran/experiments:abc");
+
+        // Assert
+        assertNull(subject.preferredAffinity("hafenkran/experiments:def"));
+        final V1PreferredSchedulingTerm term =
+                affinity.getNodeAffinity().getPreferredDuringSchedulingIgnoredDuringExecution().get(0);
+        final V1NodeSelectorRequirement requirement = term.getPreference().getMatchFields().get(0);
+        assertEquals(ImageLocalityIndex.AFFINITY_WEIGHT, term.getWeight().intValue());
+        assertEquals("metadata.name", requirement.getKey());
+        assertEquals("In", requirement.getOperator());
+        assertEquals(Collections.singletonList("node1"), requirement.getValues());
+    }
+
+    private static V1Node node(String name, String... images) {
+        return new V1NodeBuilder()
+                .withNewMetadata().withName(name).endMetadata()
+                .withNewStatus()
+                .addNewImage().withNames(Arrays.asList(images)).endImage()
+                .endStatus()
+                .build();
+    }
+
+}
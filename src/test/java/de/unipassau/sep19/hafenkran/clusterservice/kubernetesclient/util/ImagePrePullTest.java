@@ -0,0 +1,74 @@
+package de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util;
+
+import de.unipassau.sep19.hafenkran.clusterservice.dto.ImagePrePullDTO;
+import io.kubernetes.client.models.V1DaemonSet;
+import io.kubernetes.client.models.V1DaemonSetStatus;
+import io.kubernetes.client.models.V1Pod;
+import io.kubernetes.client.models.V1PodBuilder;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ImagePrePullTest {
+
+    private static final String IMAGE = "repo/experiments:abc";
+
+    @Test
+    public void testDaemonSet_pullsImageInInitContainer() {
+
+        // Execute
+        final V1DaemonSet daemonSet = ImagePrePull.daemonSet("abc", IMAGE, "pause:3.1");
+
+        // Assert
+        assertEquals("prepull-abc", daemonSet.getMetadata().getName());
+        assertEquals(IMAGE, daemonSet.getSpec().getTemplate().getSpec().getInitContainers().get(0).getImage());
+        assertEquals("pause:3.1", daemonSet.getSpec().getTemplate().getSpec().getContainers().get(0).getImage());
+        assertEquals("abc", daemonSet.getSpec().getSelector().getMatchLabels().get(ImagePrePull.LABEL));
+    }
+
+    @Test
+    public void testProgress_somePodsPulled_countsPulledNodes() {
+
+        // Prepare
+        final V1DaemonSet daemonSet = ImagePrePull.daemonSet("abc", IMAGE, "pause:3.1")
+                .status(new V1DaemonSetStatus().desiredNumberScheduled(3));
+
+        // Execute
+        final ImagePrePullDTO progress = ImagePrePull.progress(IMAGE, daemonSet,
+                Arrays.asList(pod("docker-pullable://repo/experiments@sha256:1"), pod(""), pod(null)));
+
+        // Assert
+        assertEquals(3, progress.getNodes());
+        assertEquals(1, progress.getPulledNodes());
+        assertFalse(progress.isCompleted());
+    }
+
+    @Test
+    public void testProgress_allPodsPulled_isCompleted() {
+
+        // Prepare
+        final V1DaemonSet daemonSet = ImagePrePull.daemonSet("abc", IMAGE, "pause:3.1")
+                .status(new V1DaemonSetStatus().desiredNumberScheduled(1));
+
+        // Execute
+        final ImagePrePullDTO progress = ImagePrePull.progress(IMAGE, daemonSet,
+                Collections.singletonList(pod("docker-pullable://repo/experiments@sha256:1")));
+
+        // Assert
+        assertTrue(progress.isCompleted());
+    }
+
+    private static V1Pod pod(String imageId) {
+        return new V1PodBuilder()
+                .withNewStatus()
+                .addNewInitContainerStatus().withName("pull").withImageID(imageId).endInitContainerStatus()
+                .endStatus()
+                .build();
+    }
+
+}
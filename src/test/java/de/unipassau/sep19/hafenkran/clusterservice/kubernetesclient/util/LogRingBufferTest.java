@@ -0,0 +1,148 @@
+package de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util;
+
+import org.junit.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LogRingBufferTest {
+
+    @Test
+    public void testTail_lastLines_returnsRequestedLinesWithoutTimestamps() {
+
+        // Prepare
+        final LogRingBuffer subject = new LogRingBuffer(1024, 16, true);
+        append(subject, 0, "first");
+        append(subject, 1, "second");
+        append(subject, 2, "third");
+
+        // Execute
+        final String tail = subject.tail(2, null, false);
+
+        // Assert
+        assertEquals("second\nthird\n", tail);
+    }
+
+    @Test
+    public void testTail_withTimestamps_returnsLinesPrefixedWithTimestamps() {
+
+        // Prepare
+        final LogRingBuffer subject = new LogRingBuffer(1024, 16, true);
+        append(subject, 0, "first");
+
+        // Execute
+        final String tail = subject.tail(10, null, true);
+
+        // Assert
+        assertEquals(timestamp(0) + " first\n", tail);
+    }
+
+    @Test
+    public void testTail_sinceSeconds_returnsOnlyRecentLines() {
+
+        // Prepare
+        final LogRingBuffer subject = new LogRingBuffer(1024, 16, true);
+        append(subject, 600, "old");
+        append(subject, 30, "recent");
+        append(subject, 10, "latest");
+
+        // Execute
+        final String tail = subject.tail(10, 60, false);
+
+        // Assert
+        assertEquals("recent\nlatest\n", tail);
+    }
+
+    @Test
+    public void testAppend_bufferFull_overwritesOldestLines() {
+
+        // Prepare
+        final LogRingBuffer subject = new LogRingBuffer(64, 16, true);
+
+        // Execute
+        for (int i = 0; i < 10; i++) {
+            append(subject, 0, "line " + i);
+        }
+
+        // Assert
+        assertEquals("line 8\nline 9\n", subject.tail(2, null, false));
+        assertTrue(subject.covers(2, null));
+        assertFalse(subject.covers(10, null));
+    }
+
+    @Test
+    public void testAppend_lineIndexFull_evictsOldestLine() {
+
+        // Prepare
+        final LogRingBuffer subject = new LogRingBuffer(1024, 2, true);
+
+        // Execute
+        append(subject, 0, "first");
+        append(subject, 0, "second");
+        append(subject, 0, "third");
+
+        // Assert
+        assertEquals("second\nthird\n", subject.tail(10, null, false));
+        assertFalse(subject.covers(3, null));
+    }
+
+    @Test
+    public void testCovers_notTruncated_coversAnyQuery() {
+
+        // Prepare
+        final LogRingBuffer subject = new LogRingBuffer(1024, 16, true);
+        append(subject, 0, "first");
+
+        // Execute
+        final boolean covers = subject.covers(100, null);
+
+        // Assert
+        assertTrue(covers);
+    }
+
+    @Test
+    public void testCovers_incompleteBuffer_coversOnlyAppendedLines() {
+
+        // Prepare
+        final LogRingBuffer subject = new LogRingBuffer(1024, 16, false);
+        final boolean coversEmpty = subject.covers(1, null);
+        append(subject, 30, "first");
+        append(subject, 10, "second");
+
+        // Execute & Assert
+        assertFalse(coversEmpty);
+        assertTrue(subject.covers(2, null));
+        assertFalse(subject.covers(3, null));
+        assertTrue(subject.covers(100, 20));
+        assertFalse(subject.covers(100, 60));
+    }
+
+    @Test
+    public void testAppend_moreThanInitialCapacity_growsBuffer() {
+
+        // Prepare
+        final LogRingBuffer subject = new LogRingBuffer(1 << 20, 1 << 16, true);
+        final StringBuilder expected = new StringBuilder();
+
+        // Execute
+        for (int i = 0; i < 1000; i++) {
+            append(subject, 0, "line " + i);
+            expected.append("line ").append(i).append('\n');
+        }
+
+        // Assert
+        assertEquals(expected.toString(), subject.tail(1000, null, false));
+        assertTrue(subject.covers(1000, null));
+    }
+
+    private static void append(LogRingBuffer buffer, int secondsAgo, String text) {
+        buffer.append(LogLine.parse(timestamp(secondsAgo) + " " + text));
+    }
+
+    private static String timestamp(int secondsAgo) {
+        return Instant.ofEpochSecond(Instant.now().getEpochSecond() - secondsAgo).toString();
+    }
+}
@@ -0,0 +1,149 @@
+package de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util;
+
+import io.kubernetes.client.ApiException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LogStreamHubTest {
+
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+    private final AtomicInteger openedStreams = new AtomicInteger();
+
+    private String log;
+
+    private boolean closed;
+
+    @Before
+    public void setUp() {
+        this.log = "first\nsecond\nthird\n";
+        this.closed = false;
+    }
+
+    @Test
+    public void testSubscribe_multipleSubscribers_shareSingleStream() throws IOException, ApiException {
+
+        // Prepare
+        final LogStreamHub subject = new LogStreamHub(this::open, tasks::add, 10);
+        final RecordingSink first = new RecordingSink();
+        final RecordingSink second = new RecordingSink();
+
+        // Execute
+        subject.subscribe("namespace", "pod", first);
+        subject.subscribe("namespace", "pod", second);
+        runTasks();
+
+        // Assert
+        assertEquals(1, openedStreams.get());
+        assertEquals(Arrays.asList("first", "second", "third"), first.lines);
+        assertEquals(Arrays.asList("first", "second", "third"), second.lines);
+        assertTrue(first.completed);
+        assertTrue(second.completed);
+    }
+
+    @Test
+    public void testSubscribe_slowSubscriber_dropsOldestLines() throws IOException, ApiException {
+
+        // Prepare
+        final LogStreamHub subject = new LogStreamHub(this::open, tasks::add, 2);
+        final RecordingSink sink = new RecordingSink();
+        subject.subscribe("namespace", "pod", sink);
+
+        // Execute
+        // run the log pump before any drain, so all lines are buffered at once
+        tasks.poll().run();
+        runTasks();
+
+        // Assert
+        assertEquals(Arrays.asList("second", "third"), sink.lines);
+        assertTrue(sink.completed);
+    }
+
+    @Test
+    public void testSubscribeDirect_moreLinesThanBuffer_receivesAllLines() throws IOException, ApiException {
+
+        // Prepare
+        final LogStreamHub subject = new LogStreamHub(this::open, tasks::add, 2);
+        final RecordingSink directSink = new RecordingSink();
+        final RecordingSink sink = new RecordingSink();
+        subject.subscribeDirect("namespace", "pod", directSink);
+        subject.subscribe("namespace", "pod", sink);
+
+        // Execute
+        tasks.poll().run();
+
+        // Assert
+        assertEquals(Arrays.asList("first", "second", "third"), directSink.lines);
+        assertTrue(directSink.completed);
+        assertTrue(sink.lines.isEmpty());
+    }
+
+    @Test
+    public void testSubscribe_lastSubscriberLeaves_closesStream() throws IOException, ApiException {
+
+        // Prepare
+        final LogStreamHub subject = new LogStreamHub(this::open, tasks::add, 10);
+        final Closeable first = subject.subscribe("namespace", "pod", new RecordingSink());
+        final Closeable second = subject.subscribe("namespace", "pod", new RecordingSink());
+
+        // Execute & Assert
+        first.close();
+        assertFalse(closed);
+        second.close();
+        assertTrue(closed);
+
+        subject.subscribe("namespace", "pod", new RecordingSink());
+        assertEquals(2, openedStreams.get());
+    }
+
+    private InputStream open(String namespace, String podName) {
+        openedStreams.incrementAndGet();
+        return new ByteArrayInputStream(log.getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public void close() {
+                closed = true;
+            }
+        };
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private static class RecordingSink implements LogSink {
+
+        private final List<String> lines = new ArrayList<>();
+
+        private boolean completed;
+
+        @Override
+        public void send(LogLine line) {
+            lines.add(line.getText());
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+
+}
@@ -0,0 +1,133 @@
+package de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util;
+
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.PlacementEngine.Placement;
+import io.kubernetes.client.custom.Quantity;
+import io.kubernetes.client.models.V1Affinity;
+import io.kubernetes.client.models.V1Node;
+import io.kubernetes.client.models.V1NodeBuilder;
+import io.kubernetes.client.models.V1NodeSelectorRequirement;
+import io.kubernetes.client.models.V1PreferredSchedulingTerm;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class PlacementEngineTest {
+
+    private static final String IMAGE = "hafenkran/experiments:abc";
+
+    private ClusterCapacityModel capacityModel;
+
+    private ImageLocalityIndex imageLocalityIndex;
+
+    private PlacementEngine subject;
+
+    @Before
+    public void setUp() {
+        this.capacityModel = new ClusterCapacityModel();
+        this.imageLocalityIndex = new ImageLocalityIndex("hafenkran/experiments");
+        this.subject = new PlacementEngine(capacityModel, imageLocalityIndex);
+    }
+
+    @Test
+    public void testPlace_severalNodes_choosesBestFit() {
+
+        // Prepare
+        addNode("large", "8", "16Gi");
+        addNode("small", "2", "4Gi");
+
+        // Execute
+        final String nodeName = subject.place(new Placement("namespace", "pod1", IMAGE, 1500, 3 * 1024 * 1024));
+
+        // Assert
+        assertEquals("small", nodeName);
+    }
+
+    @Test
+    public void testPlace_placedPods_areAssumedOnTheirNodes() {
+
+        // Prepare
+        addNode("node1", "2", "4Gi");
+        addNode("node2", "2", "4Gi");
+
+        // Execute
+        final String first = subject.place(new Placement("namespace", "pod1", IMAGE, 1500, 1024));
+        final String second = subject.place(new Placement("namespace", "pod2", IMAGE, 1500, 1024));
+        final String third = subject.place(new Placement("namespace", "pod3", IMAGE, 1500, 1024));
+
+        // Assert
+        assertEquals("node1", first);
+        assertEquals("node2", second);
+        assertNull(third);
+    }
+
+    @Test
+    public void testPlace_severalPods_placesLargestFirst() {
+
+        // Prepare
+        addNode("node1", "3", "4Gi");
+        addNode("node2", "2", "4Gi");
+        final Placement small = new Placement("namespace", "pod1", IMAGE, 1000, 1024);
+        final Placement large = new Placement("namespace", "pod2", IMAGE, 3000, 1024);
+
+        // Execute
+        final Map<Placement, String> nodeNames = subject.place(Arrays.asList(small, large));
+
+        // Assert
+        assertEquals("node1", nodeNames.get(large));
+        assertEquals("node2", nodeNames.get(small));
+    }
+
+    @Test
+    public void testPlace_equalNodes_prefersNodeWithImage() {
+
+        // Prepare
+        addNode("node1", "2", "4Gi");
+        addNode("node2", "2", "4Gi");
+        final V1Node nodeWithImage = new V1NodeBuilder()
+                .withNewMetadata().withName("node2").endMetadata()
+                .withNewStatus().addNewImage().withNames(IMAGE).endImage().endStatus()
+                .build();
+        imageLocalityIndex.nodeEventHandler().onAdd(nodeWithImage);
+
+        // Execute
+        final String nodeName = subject.place(new Placement("namespace", "pod1", IMAGE, 1000, 1024));
+
+        // Assert
+        assertEquals("node2", nodeName);
+    }
+
+    @Test
+    public void testPreferredAffinity_nodeName_prefersNodeWithHighestWeight() {
+
+        // Execute
+        final V1Affinity affinity = PlacementEngine.preferredAffinity("node1");
+
+        // Assert
+        assertNull(affinity.getNodeAffinity().getRequiredDuringSchedulingIgnoredDuringExecution());
+        final V1PreferredSchedulingTerm term = affinity.getNodeAffinity()
+                .getPreferredDuringSchedulingIgnoredDuringExecution().get(0);
+        final V1NodeSelectorRequirement requirement = term.getPreference().getMatchFields().get(0);
+        assertEquals(100, term.getWeight().intValue());
+        assertEquals("metadata.name", requirement.getKey());
+        assertEquals(Collections.singletonList("node1"), requirement.getValues());
+    }
+
+    private void addNode(String name, String cpu, String memory) {
+        final Map<String, Quantity> allocatable = new HashMap<>();
+        allocatable.put("cpu", Quantity.fromString(cpu));
+        allocatable.put("memory", Quantity.fromString(memory));
+
+        capacityModel.nodeEventHandler().onAdd(new V1NodeBuilder()
+                .withNewMetadata().withName(name).endMetadata()
+                .withNewStatus().withAllocatable(allocatable).endStatus()
+                .build());
+    }
+
+}
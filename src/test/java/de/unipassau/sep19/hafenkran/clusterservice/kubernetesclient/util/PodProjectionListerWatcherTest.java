@@ -0,0 +1,72 @@
+package de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util;
+
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.PodProjection.PodProjectionList;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.PodProjectionListerWatcher.Checkpoint;
+import io.kubernetes.client.ApiClient;
+import io.kubernetes.client.ApiException;
+import io.kubernetes.client.models.V1PodBuilder;
+import io.kubernetes.client.util.CallGeneratorParams;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class PodProjectionListerWatcherTest {
+
+    // nothing listens there, so every call to the api server fails
+    private final ApiClient apiClient = new ApiClient().setBasePath("http://localhost:1");
+
+    private final PodProjectionListerWatcher listerWatcher = new PodProjectionListerWatcher(apiClient, "app=test",
+            false, 500);
+
+    @Test
+    public void testList_restoredCheckpoint_returnsCheckpointWithoutListing() throws ApiException {
+
+        // Prepare
+        final PodProjection pod = PodProjection.of(new V1PodBuilder()
+                .withNewMetadata().withName("pod1").withNamespace("namespace").endMetadata()
+                .build());
+        listerWatcher.restore(new Checkpoint("42", Collections.singletonList(pod)));
+
+        // Execute
+        final PodProjectionList list = listerWatcher.list(new CallGeneratorParams(false, null, null));
+
+        // Assert
+        assertEquals("42", list.getMetadata().getResourceVersion());
+        assertEquals(Collections.singletonList(pod), list.getItems());
+    }
+
+    @Test
+    public void testList_relistAfterRestore_returnsPodsAsOfVersion() throws ApiException {
+
+        // Prepare
+        final PodProjection pod = PodProjection.of(new V1PodBuilder()
+                .withNewMetadata().withName("pod2").withNamespace("namespace").endMetadata()
+                .build());
+        listerWatcher.restore(new Checkpoint("42", Collections.singletonList(pod)));
+        listerWatcher.list(new CallGeneratorParams(false, null, null));
+
+        // Execute
+        final PodProjectionList list = listerWatcher.list(new CallGeneratorParams(false, null, null));
+        final Checkpoint checkpoint = listerWatcher.checkpoint();
+
+        // Assert
+        assertEquals("42", list.getMetadata().getResourceVersion());
+        assertEquals(Collections.singletonList(pod), list.getItems());
+        assertEquals("42", checkpoint.getResourceVersion());
+        assertEquals(Collections.singletonList(pod), checkpoint.getPods());
+    }
+
+    @Test
+    public void testCheckpoint_notListedYet_returnsNull() {
+
+        // Execute
+        final Checkpoint checkpoint = listerWatcher.checkpoint();
+
+        // Assert
+        assertNull(checkpoint);
+    }
+
+}
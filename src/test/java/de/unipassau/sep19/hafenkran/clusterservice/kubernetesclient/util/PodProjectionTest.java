@@ -0,0 +1,165 @@
+package de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util;
+
+import io.kubernetes.client.custom.Quantity;
+import io.kubernetes.client.informer.cache.Cache;
+import io.kubernetes.client.informer.cache.Lister;
+import io.kubernetes.client.models.V1Pod;
+import io.kubernetes.client.models.V1PodBuilder;
+import io.kubernetes.client.proto.Meta;
+import io.kubernetes.client.proto.Resource;
+import io.kubernetes.client.proto.V1;
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class PodProjectionTest {
+
+    @Test
+    public void testOf_fullPod_keepsOnlyReadFields() {
+
+        // Prepare
+        final V1Pod pod = new V1PodBuilder()
+                .withNewMetadata()
+                .withName("pod1")
+                .withNamespace("namespace")
+                .withResourceVersion("42")
+                .withLabels(Collections.singletonMap("run", "pod1"))
+                .endMetadata()
+                .withNewSpec()
+                .withNodeName("node1")
+                .addNewContainer()
+                .withName("pod1")
+                .withNewResources()
+                .withLimits(Collections.singletonMap("cpu", Quantity.fromString("250m")))
+                .withRequests(Collections.singletonMap("memory", Quantity.fromString("1Mi")))
+                .endResources()
+                .endContainer()
+                .endSpec()
+                .withNewStatus().withPhase("Running").endStatus()
+                .build();
+
+        // Execute
+        final PodProjection projection = PodProjection.of(pod);
+
+        // Assert
+        assertEquals("pod1", projection.getName());
+        assertEquals("namespace", projection.getNamespace());
+        assertEquals("42", projection.getMetadata().getResourceVersion());
+        assertNull(projection.getMetadata().getLabels());
+        assertEquals("Running", projection.getPhase());
+        assertEquals("node1", projection.getNodeName());
+        assertEquals(250, projection.getCpuRequests());
+        assertEquals(1024, projection.getMemoryRequests());
+    }
+
+    @Test
+    public void testOf_protobufPod_keepsOnlyReadFields() {
+
+        // Prepare
+        final V1.Pod pod = V1.Pod.newBuilder()
+                .setMetadata(Meta.ObjectMeta.newBuilder()
+                        .setName("pod1")
+                        .setNamespace("namespace")
+                        .setResourceVersion("42")
+                        .setCreationTimestamp(Meta.Time.newBuilder().setSeconds(1567339200L))
+                        .putLabels("run", "pod1"))
+                .setSpec(V1.PodSpec.newBuilder()
+                        .setNodeName("node1")
+                        .addContainers(V1.Container.newBuilder()
+                                .setName("pod1")
+                                .setResources(V1.ResourceRequirements.newBuilder()
+                                        .putLimits("cpu", Resource.Quantity.newBuilder().setString("250m").build())
+                                        .putRequests("memory",
+                                                Resource.Quantity.newBuilder().setString("1Mi").build()))))
+                .setStatus(V1.PodStatus.newBuilder()
+                        .setPhase("Running")
+                        .addConditions(V1.PodCondition.newBuilder()
+                                .setType("PodScheduled")
+                                .setStatus("True")
+                                .setLastTransitionTime(Meta.Time.newBuilder().setSeconds(1567339201L))))
+                .build();
+
+        // Execute
+        final PodProjection projection = PodProjection.of(pod);
+
+        // Assert
+        assertEquals("pod1", projection.getName());
+        assertEquals("namespace", projection.getNamespace());
+        assertEquals("42", projection.getMetadata().getResourceVersion());
+        assertNull(projection.getMetadata().getLabels());
+        assertEquals("Running", projection.getPhase());
+        assertEquals("node1", projection.getNodeName());
+        assertEquals(250, projection.getCpuRequests());
+        assertEquals(1024, projection.getMemoryRequests());
+        assertEquals(1567339200000L, projection.getCreatedAt().getMillis());
+        assertEquals(1567339201000L, projection.getScheduledAt().getMillis());
+    }
+
+    @Test
+    public void testOf_exceededDeadline_keepsReason() {
+
+        // Prepare
+        final V1Pod pod = new V1PodBuilder()
+                .withNewMetadata().withName("pod1").withNamespace("namespace").endMetadata()
+                .withNewStatus().withPhase("Failed").withReason("DeadlineExceeded").endStatus()
+                .build();
+
+        // Execute
+        final PodProjection projection = PodProjection.of(pod);
+
+        // Assert
+        assertEquals("Failed", projection.getPhase());
+        assertEquals("DeadlineExceeded", projection.getReason());
+    }
+
+    @Test
+    public void testOf_runningPod_keepsStartupTimes() {
+
+        // Prepare
+        final DateTime created = new DateTime(2019, 9, 1, 12, 0, 0);
+        final V1Pod pod = new V1PodBuilder()
+                .withNewMetadata().withName("pod1").withNamespace("namespace").withCreationTimestamp(created)
+                .endMetadata()
+                .withNewStatus()
+                .withPhase("Running")
+                .addNewCondition().withType("PodScheduled").withStatus("True")
+                .withLastTransitionTime(created.plusSeconds(1)).endCondition()
+                .addNewCondition().withType("ContainersReady").withStatus("False")
+                .withLastTransitionTime(created.plusSeconds(1)).endCondition()
+                .addNewContainerStatus().withName("pod1")
+                .withNewState().withNewRunning().withStartedAt(created.plusSeconds(30)).endRunning().endState()
+                .endContainerStatus()
+                .endStatus()
+                .build();
+
+        // Execute
+        final PodProjection projection = PodProjection.of(pod);
+
+        // Assert
+        assertEquals(created, projection.getCreatedAt());
+        assertEquals(created.plusSeconds(1), projection.getScheduledAt());
+        assertEquals(created.plusSeconds(30), projection.getContainerStartedAt());
+        assertNull(projection.getContainersReadyAt());
+    }
+
+    @Test
+    public void testOf_informerCache_isIndexedByNamespaceAndName() {
+
+        // Prepare
+        final Cache<PodProjection> cache = new Cache<>();
+        final PodProjection projection = PodProjection.of(new V1PodBuilder()
+                .withNewMetadata().withName("pod1").withNamespace("namespace").endMetadata()
+                .build());
+
+        // Execute
+        cache.add(projection);
+
+        // Assert
+        assertEquals(projection, new Lister<>(cache).namespace("namespace").get("pod1"));
+    }
+
+}
@@ -0,0 +1,41 @@
+package de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class ResourceRequestRecommenderTest {
+
+    @Test
+    public void testRecommend_pastPeaks_returnsPercentilePlusHeadroom() {
+
+        // Execute
+        final Long request = ResourceRequestRecommender.recommend(
+                Arrays.asList(100L, 400L, 200L, 300L, 500L, 150L, 250L, 350L, 450L, 50L), 10000, 90, 20);
+
+        // Assert
+        assertEquals(540L, request.longValue());
+    }
+
+    @Test
+    public void testRecommend_peakAboveLimit_returnsLimit() {
+
+        // Execute
+        final Long request = ResourceRequestRecommender.recommend(Arrays.asList(900L, 1000L), 1000, 95, 20);
+
+        // Assert
+        assertEquals(1000L, request.longValue());
+    }
+
+    @Test
+    public void testRecommend_noPeaks_returnsNull() {
+
+        // Execute & Assert
+        assertNull(ResourceRequestRecommender.recommend(Collections.emptyList(), 1000, 95, 20));
+    }
+
+}
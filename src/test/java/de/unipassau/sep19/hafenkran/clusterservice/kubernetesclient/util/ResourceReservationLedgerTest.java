@@ -0,0 +1,191 @@
+package de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util;
+
+import io.kubernetes.client.models.V1ObjectMeta;
+import io.kubernetes.client.models.V1PodBuilder;
+import io.kubernetes.client.models.V1ResourceQuota;
+import io.kubernetes.client.models.V1ResourceQuotaStatus;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ResourceReservationLedgerTest {
+
+    private static final String NAMESPACE = "namespace";
+
+    private ResourceReservationLedger subject;
+
+    @Before
+    public void setUp() {
+        this.subject = new ResourceReservationLedger(1000, 1024);
+    }
+
+    @Test
+    public void testReserve_exceedingLimits_returnsFalse() {
+
+        // Execute & Assert
+        assertTrue(subject.reserve(NAMESPACE, "pod1", 600, 512));
+        assertFalse(subject.reserve(NAMESPACE, "pod2", 600, 256));
+        assertFalse(subject.reserve(NAMESPACE, "pod2", 100, 768));
+        assertTrue(subject.reserve(NAMESPACE, "pod2", 400, 512));
+    }
+
+    @Test
+    public void testReserve_samePodTwice_reservesOnce() {
+
+        // Execute & Assert
+        assertTrue(subject.reserve(NAMESPACE, "pod1", 600, 512));
+        assertTrue(subject.reserve(NAMESPACE, "pod1", 600, 512));
+        assertTrue(subject.reserve(NAMESPACE, "pod2", 400, 512));
+    }
+
+    @Test
+    public void testRelease_reservedPod_freesResources() {
+
+        // Prepare
+        subject.reserve(NAMESPACE, "pod1", 1000, 1024);
+
+        // Execute
+        subject.release(NAMESPACE, "pod1");
+        subject.release(NAMESPACE, "pod1");
+
+        // Assert
+        assertTrue(subject.reserve(NAMESPACE, "pod2", 1000, 1024));
+    }
+
+    @Test
+    public void testReconcile_observedUsageAboveReservations_limitsAdmission() {
+
+        // Prepare
+        subject.reserve(NAMESPACE, "pod1", 200, 256);
+        subject.podEventHandler().onAdd(pod("pod1", "Pending", "10"));
+
+        // Execute
+        subject.reconcile(NAMESPACE, 800, 256, 10);
+
+        // Assert
+        assertFalse(subject.reserve(NAMESPACE, "pod2", 300, 256));
+        assertTrue(subject.reserve(NAMESPACE, "pod2", 200, 256));
+    }
+
+    @Test
+    public void testReserve_unknownObservedUsageAndPendingReservation_countsBoth() {
+
+        // Prepare
+        subject.reconcile(NAMESPACE, 500, 0, 0);
+        subject.reserve(NAMESPACE, "pod1", 300, 1);
+
+        // Execute & Assert
+        assertFalse(subject.reserve(NAMESPACE, "pod2", 300, 1));
+        assertTrue(subject.reserve(NAMESPACE, "pod2", 200, 1));
+    }
+
+    @Test
+    public void testReconcile_createdPod_dropsPendingReservation() {
+
+        // Prepare
+        subject.reserve(NAMESPACE, "pod1", 600, 1);
+        subject.reconcile(NAMESPACE, 0, 0, 0);
+        assertFalse(subject.awaitsQuota(NAMESPACE));
+        subject.podEventHandler().onAdd(pod("pod1", "Pending", "10"));
+        assertTrue(subject.awaitsQuota(NAMESPACE));
+
+        // Execute
+        subject.reconcile(quota("11", "600m", "1Ki"));
+
+        // Assert
+        assertFalse(subject.awaitsQuota(NAMESPACE));
+        assertTrue(subject.reserve(NAMESPACE, "pod2", 400, 1));
+        assertFalse(subject.reserve(NAMESPACE, "pod3", 1, 1));
+    }
+
+    @Test
+    public void testReconcile_quotaOlderThanPod_keepsReservationPending() {
+
+        // Prepare
+        subject.reserve(NAMESPACE, "pod1", 600, 1);
+        subject.podEventHandler().onAdd(pod("pod1", "Pending", "10"));
+
+        // Execute
+        subject.reconcile(quota("9", "0", "0"));
+
+        // Assert
+        assertTrue(subject.awaitsQuota(NAMESPACE));
+        assertFalse(subject.reserve(NAMESPACE, "pod2", 500, 1));
+    }
+
+    @Test
+    public void testReconcile_quotaReadAfterPodWasSeen_dropsPendingReservation() {
+
+        // Prepare
+        subject.reserve(NAMESPACE, "pod1", 600, 1);
+        subject.podEventHandler().onAdd(pod("pod1", "Pending", "10"));
+        final long createdVersion = subject.createdVersion(NAMESPACE);
+
+        // Execute
+        subject.reconcile(quota("9", "600m", "1Ki"), createdVersion);
+
+        // Assert
+        assertEquals(10, createdVersion);
+        assertFalse(subject.awaitsQuota(NAMESPACE));
+        assertTrue(subject.reserve(NAMESPACE, "pod2", 400, 1));
+    }
+
+    @Test
+    public void testReserve_concurrentReservations_neverExceedsLimits() throws InterruptedException {
+
+        // Prepare
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger admitted = new AtomicInteger();
+
+        // Execute
+        for (int i = 0; i < 100; i++) {
+            final String podName = "pod" + i;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (subject.reserve(NAMESPACE, podName, 100, 1)) {
+                    admitted.incrementAndGet();
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals(10, admitted.get());
+    }
+
+    private static PodProjection pod(String name, String phase, String resourceVersion) {
+        return PodProjection.of(new V1PodBuilder()
+                .withNewMetadata().withName(name).withNamespace(NAMESPACE).withResourceVersion(resourceVersion)
+                .endMetadata()
+                .withNewStatus().withPhase(phase).endStatus()
+                .build());
+    }
+
+    private static V1ResourceQuota quota(String resourceVersion, String usedCpu, String usedMemory) {
+        final Map<String, String> used = new HashMap<>();
+        used.put("requests.cpu", usedCpu);
+        used.put("requests.memory", usedMemory);
+        return new V1ResourceQuota()
+                .metadata(new V1ObjectMeta().namespace(NAMESPACE).resourceVersion(resourceVersion))
+                .status(new V1ResourceQuotaStatus().used(used));
+    }
+
+}
@@ -0,0 +1,52 @@
+package de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util;
+
+import de.unipassau.sep19.hafenkran.clusterservice.dto.StartupLatencyMetricsDTO;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.StartupLatencyMetrics.Phase;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class StartupLatencyMetricsTest {
+
+    @Test
+    public void testSnapshot_recordedPhases_cumulativeBucketsPerPhase() {
+
+        // Prepare
+        final StartupLatencyMetrics metrics = new StartupLatencyMetrics();
+        metrics.record(Phase.IMAGE_PULL, 40);
+        metrics.record(Phase.IMAGE_PULL, 90000);
+        metrics.record(Phase.IMAGE_PULL, 400000);
+
+        // Execute
+        final List<StartupLatencyMetricsDTO> snapshot = metrics.snapshot();
+
+        // Assert
+        assertEquals(Phase.values().length, snapshot.size());
+        final StartupLatencyMetricsDTO imagePull = snapshot.get(Phase.IMAGE_PULL.ordinal());
+        assertEquals(3, imagePull.getCount());
+        assertEquals(490040, imagePull.getSumMillis());
+        assertEquals(0, imagePull.getBuckets().get("10").longValue());
+        assertEquals(1, imagePull.getBuckets().get("50").longValue());
+        assertEquals(2, imagePull.getBuckets().get("120000").longValue());
+        assertEquals(3, imagePull.getBuckets().get("+Inf").longValue());
+        assertEquals(0, snapshot.get(Phase.SCHEDULING.ordinal()).getCount());
+    }
+
+    @Test
+    public void testRecord_negativeLatency_recordedAsZero() {
+
+        // Prepare
+        final StartupLatencyMetrics metrics = new StartupLatencyMetrics();
+
+        // Execute
+        metrics.record(Phase.CONTAINER_START, -1000);
+
+        // Assert
+        final StartupLatencyMetricsDTO containerStart = metrics.snapshot().get(Phase.CONTAINER_START.ordinal());
+        assertEquals(0, containerStart.getSumMillis());
+        assertEquals(1, containerStart.getBuckets().get("10").longValue());
+    }
+
+}
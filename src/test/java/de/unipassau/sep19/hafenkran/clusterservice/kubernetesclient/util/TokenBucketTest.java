@@ -0,0 +1,61 @@
+package de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TokenBucketTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    public void testReserve_withinBurst_noWait() {
+
+        // Prepare
+        final TokenBucket subject = new TokenBucket(10, 2, now::get);
+
+        // Execute
+        final long first = subject.reserve();
+        final long second = subject.reserve();
+
+        // Assert
+        assertEquals(0, first);
+        assertEquals(0, second);
+    }
+
+    @Test
+    public void testReserve_burstExhausted_waitsForRefill() {
+
+        // Prepare
+        final TokenBucket subject = new TokenBucket(10, 1, now::get);
+        subject.reserve();
+
+        // Execute
+        final long second = subject.reserve();
+        final long third = subject.reserve();
+
+        // Assert
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), second);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(200), third);
+    }
+
+    @Test
+    public void testReserve_idle_refillsUpToBurst() {
+
+        // Prepare
+        final TokenBucket subject = new TokenBucket(10, 2, now::get);
+        subject.reserve();
+        subject.reserve();
+
+        // Execute
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+        // Assert
+        assertEquals(0, subject.reserve());
+        assertEquals(0, subject.reserve());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), subject.reserve());
+    }
+}
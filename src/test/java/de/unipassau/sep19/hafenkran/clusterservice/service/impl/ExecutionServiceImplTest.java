@@ -3,15 +3,22 @@ package de.unipassau.sep19.hafenkran.clusterservice.service.impl;
 import de.unipassau.sep19.hafenkran.clusterservice.config.JwtAuthentication;
 import de.unipassau.sep19.hafenkran.clusterservice.dto.ExecutionCreateDTO;
 import de.unipassau.sep19.hafenkran.clusterservice.dto.ExecutionDTO;
+import de.unipassau.sep19.hafenkran.clusterservice.dto.MetricDTO;
+import de.unipassau.sep19.hafenkran.clusterservice.dto.ResultDTO;
+import de.unipassau.sep19.hafenkran.clusterservice.dto.StartupLatencyMetricsDTO;
 import de.unipassau.sep19.hafenkran.clusterservice.dto.UserDTO;
 import de.unipassau.sep19.hafenkran.clusterservice.exception.ResourceNotFoundException;
 import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.KubernetesClient;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.PodProjection;
+import de.unipassau.sep19.hafenkran.clusterservice.kubernetesclient.util.StartupLatencyMetrics;
 import de.unipassau.sep19.hafenkran.clusterservice.model.ExecutionDetails;
 import de.unipassau.sep19.hafenkran.clusterservice.model.ExperimentDetails;
 import de.unipassau.sep19.hafenkran.clusterservice.repository.ExecutionRepository;
 import de.unipassau.sep19.hafenkran.clusterservice.repository.ExperimentRepository;
 import de.unipassau.sep19.hafenkran.clusterservice.serviceclient.impl.ReportingServiceClientImpl;
 import io.kubernetes.client.ApiException;
+import io.kubernetes.client.models.V1PodBuilder;
+import org.joda.time.DateTime;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -19,18 +26,28 @@ import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import static de.unipassau.sep19.hafenkran.clusterservice.model.ExecutionDetails.Status.RUNNING;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.collection.IsEmptyCollection.empty;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -183,7 +200,7 @@ public class ExecutionServiceImplTest {
                 testUserExecutionDetails.getCreatedAt(),
                 testUserExecutionDetails.getStartedAt(), testUserExecutionDetails.getTerminatedAt(),
                 testUserExecutionDetails.getStatus(), testUserExecutionDetails.getRam(), testUserExecutionDetails.getCpu(),
-                testUserExecutionDetails.getBookedTime(), testUserExecutionDetails.getOwnerId()));
+                testUserExecutionDetails.getBookedTime(), testUserExecutionDetails.getOwnerId(), null, null, null));
         testExecutionDetailsList.add(testUserExecutionDetails);
         when(mockExecutionRepository.findAllByExperimentDetails_Id(MOCK_USER_EXPERIMENT_ID)).thenReturn(
                 testExecutionDetailsList);
@@ -254,7 +271,7 @@ public class ExecutionServiceImplTest {
                 testUserExecutionDetails.getCreatedAt(),
                 testUserExecutionDetails.getStartedAt(), testUserExecutionDetails.getTerminatedAt(),
                 testUserExecutionDetails.getStatus(), testUserExecutionDetails.getRam(), testUserExecutionDetails.getCpu(),
-                testUserExecutionDetails.getBookedTime(), testUserExecutionDetails.getOwnerId()));
+                testUserExecutionDetails.getBookedTime(), testUserExecutionDetails.getOwnerId(), null, null, null));
         testExecutionDetailsList.add(testUserExecutionDetails);
         when(mockExecutionRepository.findAllByOwnerId(MOCK_USER_ID)).thenReturn(testExecutionDetailsList);
         when(mockContext.getAuthentication()).thenReturn(MOCK_USER_AUTH);
@@ -330,7 +347,8 @@ public class ExecutionServiceImplTest {
                 1L, 1L);
         mockExecutionDetails.setId(MOCK_USER_EXECUTION_ID);
         ExecutionDTO mockExecutionDTO = new ExecutionDTO(MOCK_USER_EXECUTION_ID, MOCK_USER_EXPERIMENT_ID, "Test-1",
-                LocalDateTime.now(), null, null, ExecutionDetails.Status.WAITING, 1L, 1L, 1L, MOCK_USER_ID);
+                LocalDateTime.now(), null, null, ExecutionDetails.Status.WAITING, 1L, 1L, 1L, MOCK_USER_ID,
+                null, null, null);
 
         when(mockExperimentRepository.findById(executionCreateDTO.getExperimentId())).thenReturn(
                 Optional.of(mockExperimentDetails));
@@ -359,7 +377,8 @@ public class ExecutionServiceImplTest {
         ExecutionCreateDTO executionCreateDTO = new ExecutionCreateDTO(Optional.of("Test.zip"), MOCK_USER_EXPERIMENT_ID,
                 Optional.of(1L), Optional.of(1L), Optional.of(1L));
         ExecutionDTO mockExecutionDTO = new ExecutionDTO(MOCK_USER_EXECUTION_ID, MOCK_USER_EXPERIMENT_ID, "Test-1",
-                LocalDateTime.now(), null, null, ExecutionDetails.Status.WAITING, 1L, 1L, 1L, MOCK_USER_ID);
+                LocalDateTime.now(), null, null, ExecutionDetails.Status.WAITING, 1L, 1L, 1L, MOCK_USER_ID,
+                null, null, null);
         ExperimentDetails mockExperimentDetails = new ExperimentDetails(MOCK_USER_ID, "Test", "filename", 1L);
         mockExperimentDetails.setId(MOCK_USER_EXPERIMENT_ID);
         ExecutionDetails mockExecutionDetails = new ExecutionDetails(MOCK_USER_ID, mockExperimentDetails, "Test-1", 1L,
@@ -463,7 +482,8 @@ public class ExecutionServiceImplTest {
         ExecutionCreateDTO executionCreateDTO = new ExecutionCreateDTO(Optional.empty(), MOCK_USER_EXPERIMENT_ID,
                 Optional.of(1L), Optional.of(1L), Optional.of(1L));
         ExecutionDTO mockExecutionDTO = new ExecutionDTO(MOCK_USER_EXECUTION_ID, MOCK_USER_EXPERIMENT_ID, "Test-1",
-                LocalDateTime.now(), null, null, ExecutionDetails.Status.WAITING, 1L, 1L, 1L, MOCK_USER_ID);
+                LocalDateTime.now(), null, null, ExecutionDetails.Status.WAITING, 1L, 1L, 1L, MOCK_USER_ID,
+                null, null, null);
 
         when(mockExperimentRepository.findById(executionCreateDTO.getExperimentId())).thenReturn(
                 Optional.of(mockExperimentDetails));
@@ -575,7 +595,8 @@ public class ExecutionServiceImplTest {
         ExecutionCreateDTO executionCreateDTO = new ExecutionCreateDTO(Optional.of("Test"), MOCK_USER_EXPERIMENT_ID,
                 Optional.of(1L), Optional.of(1L), Optional.of(1L));
         ExecutionDTO mockExecutionDTO = new ExecutionDTO(MOCK_USER_EXECUTION_ID, MOCK_USER_EXPERIMENT_ID, "Test-1",
-                LocalDateTime.now(), null, null, ExecutionDetails.Status.WAITING, 1L, 1L, 1L, MOCK_USER_ID);
+                LocalDateTime.now(), null, null, ExecutionDetails.Status.WAITING, 1L, 1L, 1L, MOCK_USER_ID,
+                null, null, null);
 
         //when(mockExecutionRepository.findById(MOCK_EXECUTION_ID)).thenReturn(Optional.of(mockExecutionDetails));
         when(mockExperimentRepository.findById(executionCreateDTO.getExperimentId())).thenReturn(
@@ -603,7 +624,8 @@ public class ExecutionServiceImplTest {
 
         // Arrange
         ExecutionDTO mockExecutionDTO = new ExecutionDTO(MOCK_USER_EXECUTION_ID, MOCK_USER_EXPERIMENT_ID, "Test1",
-                LocalDateTime.now(), null, LocalDateTime.now(), ExecutionDetails.Status.CANCELED, 1L, 1L, 1L, MOCK_USER_ID);
+                LocalDateTime.now(), null, LocalDateTime.now(), ExecutionDetails.Status.CANCELED, 1L, 1L, 1L, MOCK_USER_ID,
+                null, null, null);
         testUserExecutionDetails.setPodName("Test1");
         when(mockExecutionRepository.findById(MOCK_USER_EXECUTION_ID)).thenReturn(Optional.of(testUserExecutionDetails));
         when(mockContext.getAuthentication()).thenReturn(MOCK_USER_AUTH);
@@ -625,7 +647,8 @@ public class ExecutionServiceImplTest {
 
         // Arrange
         ExecutionDTO mockExecutionDTO = new ExecutionDTO(MOCK_ADMIN_EXECUTION_ID, MOCK_ADMIN_EXPERIMENT_ID, "Test1",
-                LocalDateTime.now(), null, LocalDateTime.now(), ExecutionDetails.Status.CANCELED, 1L, 1L, 1L, MOCK_USER_ID);
+                LocalDateTime.now(), null, LocalDateTime.now(), ExecutionDetails.Status.CANCELED, 1L, 1L, 1L, MOCK_USER_ID,
+                null, null, null);
         testAdminExecutionDetails.setPodName("Test1");
         when(mockExecutionRepository.findById(MOCK_ADMIN_EXECUTION_ID)).thenReturn(Optional.of(testAdminExecutionDetails));
         when(mockContext.getAuthentication()).thenReturn(MOCK_ADMIN_AUTH);
@@ -647,7 +670,8 @@ public class ExecutionServiceImplTest {
 
         // Arrange
         ExecutionDTO mockExecutionDTO = new ExecutionDTO(MOCK_USER_EXECUTION_ID, MOCK_USER_EXPERIMENT_ID, "Test1",
-                LocalDateTime.now(), null, LocalDateTime.now(), ExecutionDetails.Status.ABORTED, 1L, 1L, 1L, MOCK_USER_ID);
+                LocalDateTime.now(), null, LocalDateTime.now(), ExecutionDetails.Status.ABORTED, 1L, 1L, 1L, MOCK_USER_ID,
+                null, null, null);
         testUserExecutionDetails.setPodName("Test1");
         when(mockExecutionRepository.findById(MOCK_USER_EXECUTION_ID)).thenReturn(Optional.of(testUserExecutionDetails));
         when(mockContext.getAuthentication()).thenReturn(MOCK_ADMIN_AUTH);
@@ -671,7 +695,7 @@ public class ExecutionServiceImplTest {
         expectedEx.expect(ResourceNotFoundException.class);
         ExecutionDTO executionDTO = new ExecutionDTO(MOCK_USER_EXECUTION_ID, MOCK_USER_EXPERIMENT_ID, "Test1",
                 LocalDateTime.now(), null, null, ExecutionDetails.Status.WAITING,
-                1L, 1L, 1L, MOCK_USER_ID);
+                1L, 1L, 1L, MOCK_USER_ID, null, null, null);
         when(mockExecutionRepository.findById(executionDTO.getId())).thenReturn(Optional.empty());
 
         // Act
@@ -701,6 +725,48 @@ public class ExecutionServiceImplTest {
 
     }
 
+    @Test
+    public void testTerminateExecutionAsync_validExecutionDTO_validExecutionDTO() throws Exception {
+
+        // Arrange
+        testUserExecutionDetails.setPodName("Test1");
+        when(mockExecutionRepository.findById(MOCK_USER_EXECUTION_ID)).thenReturn(Optional.of(testUserExecutionDetails));
+        when(mockContext.getAuthentication()).thenReturn(MOCK_USER_AUTH);
+        final CompletableFuture<Void> deletion = new CompletableFuture<>();
+        when(mockKubernetesClient.deletePodAsync(testUserExecutionDetails)).thenReturn(deletion);
+
+        // Act
+        CompletableFuture<ExecutionDTO> actual = subject.terminateExecutionAsync(MOCK_USER_EXECUTION_ID);
+        boolean doneBeforeDeletion = actual.isDone();
+        deletion.complete(null);
+
+        // Assert
+        assertFalse(doneBeforeDeletion);
+        assertEquals(ExecutionDetails.Status.CANCELED, actual.get().getStatus());
+        verify(mockExecutionRepository, times(1)).save(testUserExecutionDetails);
+    }
+
+    @Test
+    public void testRetrieveLogsForExecutionIdAsync_noConnectionToKubernetes_completesWithResponseStatusException() {
+        // Arrange
+        ExecutionDetails mockExecutionDetails = new ExecutionDetails(MOCK_USER_ID, testUserExperimentDetails, "Test1",
+                1L, 1L, 1L);
+        mockExecutionDetails.setStatus(RUNNING);
+        when(mockExecutionRepository.findById(MOCK_USER_EXECUTION_ID)).thenReturn(Optional.of(mockExecutionDetails));
+        final CompletableFuture<String> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new ApiException());
+        when(mockKubernetesClient.retrieveLogsAsync(mockExecutionDetails, 5, 5, true)).thenReturn(failed);
+        when(mockContext.getAuthentication()).thenReturn(MOCK_ADMIN_AUTH);
+
+        // Act
+        CompletableFuture<String> actual = subject.retrieveLogsForExecutionIdAsync(MOCK_USER_EXECUTION_ID, 5, 5, true);
+
+        // Assert
+        ExecutionException thrown = assertThrows(ExecutionException.class, actual::get);
+        assertTrue(thrown.getCause() instanceof ResponseStatusException);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ((ResponseStatusException) thrown.getCause()).getStatus());
+    }
+
     @Test
     public void testRetrieveLogsForExecutionId_validInput_validLogReturned() throws ApiException {
         // Arrange
@@ -797,6 +863,101 @@ public class ExecutionServiceImplTest {
         verifyNoMoreInteractions(mockExecutionRepository);
     }
 
+    @Test
+    public void testChangeExecutionStatus_validExecutionId_deadlineExceeded_setsTerminatedAtAndDeletesPod() {
+        // Arrange
+        testUserExecutionDetails.setStatus(RUNNING);
+        when(mockExecutionRepository.findById(MOCK_USER_EXECUTION_ID)).thenReturn(Optional.of(testUserExecutionDetails));
+        when(mockKubernetesClient.deletePodAsync(testUserExecutionDetails))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        // Act
+        subject.changeExecutionStatus(MOCK_USER_EXECUTION_ID, ExecutionDetails.Status.ABORTED);
+
+        // Assert
+        assertEquals(ExecutionDetails.Status.ABORTED, testUserExecutionDetails.getStatus());
+        assertNotNull(testUserExecutionDetails.getTerminatedAt());
+        verify(mockExecutionRepository, times(1)).save(testUserExecutionDetails);
+        verify(mockKubernetesClient, times(1)).deletePodAsync(testUserExecutionDetails);
+    }
+
+    @Test
+    public void testRecordPodStartup_runningPod_setsStartupTimesAndRecordsPhases() {
+        // Arrange
+        final DateTime created = new DateTime(2019, 9, 1, 12, 0, 0);
+        final PodProjection pod = PodProjection.of(new V1PodBuilder()
+                .withNewMetadata().withName("pod1").withNamespace(MOCK_USER_EXPERIMENT_ID.toString())
+                .withCreationTimestamp(created).endMetadata()
+                .withNewStatus()
+                .addNewCondition().withType("PodScheduled").withStatus("True")
+                .withLastTransitionTime(created.plusSeconds(2)).endCondition()
+                .addNewContainerStatus().withName("pod1")
+                .withNewState().withNewRunning().withStartedAt(created.plusSeconds(62)).endRunning().endState()
+                .endContainerStatus()
+                .endStatus()
+                .build());
+        when(mockExecutionRepository.findById(MOCK_USER_EXECUTION_ID)).thenReturn(Optional.of(testUserExecutionDetails));
+
+        // Act
+        subject.recordPodStartup(MOCK_USER_EXECUTION_ID, pod);
+
+        // Assert
+        assertNotNull(testUserExecutionDetails.getScheduledAt());
+        assertNotNull(testUserExecutionDetails.getContainerStartedAt());
+        verify(mockExecutionRepository, times(1)).save(testUserExecutionDetails);
+        final List<StartupLatencyMetricsDTO> metrics = subject.retrieveStartupLatencyMetrics();
+        assertEquals(2000, metrics.get(StartupLatencyMetrics.Phase.SCHEDULING.ordinal()).getSumMillis());
+        assertEquals(60000, metrics.get(StartupLatencyMetrics.Phase.IMAGE_PULL.ordinal()).getSumMillis());
+        assertEquals(0, metrics.get(StartupLatencyMetrics.Phase.CONTAINER_START.ordinal()).getCount());
+    }
+
+    @Test
+    public void testRecordPeakUsage_higherCpuUsage_keepsHigherPeaks() {
+        // Arrange
+        testUserExecutionDetails.setPeakCpu(100L);
+        testUserExecutionDetails.setPeakRam(2048L);
+        testAdminExecutionDetails.setPeakCpu(100L);
+        testAdminExecutionDetails.setPeakRam(2048L);
+        when(mockExecutionRepository.findAllById(any()))
+                .thenReturn(Arrays.asList(testUserExecutionDetails, testAdminExecutionDetails));
+
+        // Act
+        subject.recordPeakUsage(Arrays.asList(metric(MOCK_USER_EXECUTION_ID, "150m", "1024Ki"),
+                metric(MOCK_ADMIN_EXECUTION_ID, "50m", "1024Ki")));
+
+        // Assert
+        assertEquals(150L, testUserExecutionDetails.getPeakCpu().longValue());
+        assertEquals(2048L, testUserExecutionDetails.getPeakRam().longValue());
+        assertEquals(100L, testAdminExecutionDetails.getPeakCpu().longValue());
+        verify(mockExecutionRepository, times(1)).findAllById(any());
+        verify(mockExecutionRepository, times(1)).saveAll(Collections.singletonList(testUserExecutionDetails));
+        verifyNoMoreInteractions(mockExecutionRepository);
+    }
+
+    @Test
+    public void testTerminatePodsAfterBookedTimeExceeded_podWithoutDeadline_terminatesOnlyPodWithoutDeadline()
+            throws ApiException {
+
+        // Arrange
+        testUserExecutionDetails.setStatus(RUNNING);
+        testUserExecutionDetails.setStartedAt(LocalDateTime.now().minusHours(1));
+        testAdminExecutionDetails.setStatus(RUNNING);
+        testAdminExecutionDetails.setStartedAt(LocalDateTime.now().minusHours(1));
+        testAdminExecutionDetails.setActiveDeadlineSeconds(1L);
+        when(mockExecutionRepository.findAllByStatus(RUNNING))
+                .thenReturn(Arrays.asList(testUserExecutionDetails, testAdminExecutionDetails));
+        when(mockExecutionRepository.findById(MOCK_USER_EXECUTION_ID)).thenReturn(Optional.of(testUserExecutionDetails));
+
+        // Act
+        subject.terminatePodsAfterBookedTimeExceeded();
+
+        // Assert
+        assertEquals(ExecutionDetails.Status.ABORTED, testUserExecutionDetails.getStatus());
+        assertEquals(RUNNING, testAdminExecutionDetails.getStatus());
+        verify(mockKubernetesClient, times(1)).deletePod(testUserExecutionDetails);
+        verify(mockKubernetesClient, never()).deletePod(testAdminExecutionDetails);
+    }
+
     @Test
     public void testChangeExecutionStatus_validExecutionId_statusIsMutable() {
         // Arrange
@@ -844,4 +1005,58 @@ public class ExecutionServiceImplTest {
 
         // Assert - with rule
     }
+
+    @Test
+    public void testGetResults_existingId_returnsResultsStreamOfCluster() throws Exception {
+        // Arrange
+        InputStream mockResults = new ByteArrayInputStream(new byte[]{1, 2, 3});
+        when(mockExecutionRepository.findById(MOCK_USER_EXECUTION_ID)).thenReturn(Optional.of(testUserExecutionDetails));
+        when(mockKubernetesClient.retrieveResults(testUserExecutionDetails)).thenReturn(mockResults);
+
+        // Act
+        InputStream actual = subject.getResults(MOCK_USER_EXECUTION_ID);
+
+        // Assert
+        assertSame(mockResults, actual);
+        verify(mockKubernetesClient, times(1)).retrieveResults(testUserExecutionDetails);
+        verifyNoMoreInteractions(mockKubernetesClient);
+    }
+
+    @Test
+    public void testGetResults_range_returnsRangeStreamOfCluster() throws Exception {
+        // Arrange
+        InputStream mockResults = new ByteArrayInputStream(new byte[]{2, 3});
+        when(mockExecutionRepository.findById(MOCK_USER_EXECUTION_ID)).thenReturn(Optional.of(testUserExecutionDetails));
+        when(mockKubernetesClient.retrieveResults(testUserExecutionDetails, 1, 2)).thenReturn(mockResults);
+
+        // Act
+        InputStream actual = subject.getResults(MOCK_USER_EXECUTION_ID, 1, 2);
+
+        // Assert
+        assertSame(mockResults, actual);
+        verify(mockKubernetesClient, times(1)).retrieveResults(testUserExecutionDetails, 1, 2);
+        verifyNoMoreInteractions(mockKubernetesClient);
+    }
+
+    @Test
+    public void testUpdatePersistedResults_validExecution_sendsResultsStreamAndClosesIt() throws Exception {
+        // Arrange
+        InputStream mockResults = mock(InputStream.class);
+        when(mockKubernetesClient.retrieveResults(testUserExecutionDetails)).thenReturn(mockResults);
+
+        // Act
+        subject.updatePersistedResults(testUserExecutionDetails);
+
+        // Assert
+        verify(rsClient, times(1)).sendResultsToResultsService(
+                new ResultDTO(MOCK_USER_EXECUTION_ID, MOCK_USER_ID, mockResults));
+        verify(mockResults, times(1)).close();
+    }
+
+    private static MetricDTO metric(UUID executionId, String cpu, String memory) {
+        final MetricDTO metric = new MetricDTO(new MetricDTO.MetadataDTO("pod", "namespace"),
+                Collections.singletonList(new MetricDTO.ContainerDTO(new MetricDTO.UsageDTO(memory, cpu))));
+        metric.setExecutionId(executionId);
+        return metric;
+    }
 }
@@ -0,0 +1,89 @@
+package de.unipassau.sep19.hafenkran.clusterservice.util;
+
+import io.kubernetes.client.custom.Quantity;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class QuantityParserTest {
+
+    @Rule
+    public ExpectedException expectedEx = ExpectedException.none();
+
+    @Test
+    public void testParseMilliCores_decimalQuantities_returnsMilliCores() {
+
+        // Execute & Assert
+        assertEquals(250, QuantityParser.parseMilliCores("250m"));
+        assertEquals(2000, QuantityParser.parseMilliCores("2"));
+        assertEquals(500, QuantityParser.parseMilliCores("0.5"));
+        assertEquals(124, QuantityParser.parseMilliCores("123456789n"));
+        assertEquals(1, QuantityParser.parseMilliCores("1u"));
+        assertEquals(1000000, QuantityParser.parseMilliCores("1e3"));
+        assertEquals(20, QuantityParser.parseMilliCores("2E-2"));
+        assertEquals(0, QuantityParser.parseMilliCores("0"));
+    }
+
+    @Test
+    public void testParseNanoCores_decimalQuantities_returnsNanoCores() {
+
+        // Execute & Assert
+        assertEquals(123456789, QuantityParser.parseNanoCores("123456789n"));
+        assertEquals(250000000, QuantityParser.parseNanoCores("250m"));
+        assertEquals(2000000000, QuantityParser.parseNanoCores("2"));
+        assertEquals(1000, QuantityParser.parseNanoCores("1u"));
+    }
+
+    @Test
+    public void testParseKibibytes_binaryAndDecimalQuantities_returnsKibibytes() {
+
+        // Execute & Assert
+        assertEquals(16496, QuantityParser.parseKibibytes("16496Ki"));
+        assertEquals(1572864, QuantityParser.parseKibibytes("1.5Gi"));
+        assertEquals(1024, QuantityParser.parseKibibytes("1Mi"));
+        assertEquals(488282, QuantityParser.parseKibibytes("500M"));
+        assertEquals(1024, QuantityParser.parseKibibytes("1048576"));
+        assertEquals(1, QuantityParser.parseKibibytes("1"));
+        assertEquals(1L << 50, QuantityParser.parseKibibytes("1Ei"));
+        assertEquals(976563, QuantityParser.parseKibibytes("1e9"));
+    }
+
+    @Test
+    public void testParse_hugeQuantity_saturates() {
+
+        // Execute & Assert
+        assertEquals(Long.MAX_VALUE, QuantityParser.parseMilliCores("99999999999999999999999"));
+        assertEquals(Long.MAX_VALUE, QuantityParser.parseKibibytes("9000000000Ei"));
+    }
+
+    @Test
+    public void testToMilliCoresAndKibibytes_parsedQuantities_returnsPrimitiveValues() {
+
+        // Execute & Assert
+        assertEquals(4000, QuantityParser.toMilliCores(Quantity.fromString("4")));
+        assertEquals(16496, QuantityParser.toKibibytes(Quantity.fromString("16496Ki")));
+    }
+
+    @Test
+    public void testParseKibibytes_unknownSuffix_throwsException() {
+
+        // Prepare
+        expectedEx.expect(NumberFormatException.class);
+
+        // Execute
+        QuantityParser.parseKibibytes("12Xi");
+    }
+
+    @Test
+    public void testParseMilliCores_noDigits_throwsException() {
+
+        // Prepare
+        expectedEx.expect(NumberFormatException.class);
+
+        // Execute
+        QuantityParser.parseMilliCores("m");
+    }
+
+}